@@ -0,0 +1,184 @@
+/* osu! benchmark helpers
+ * Timing, allocation counts and the generated maps every benchmark uses
+ */
+
+package osu;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Method;
+import java.util.Random;
+
+class Bench {
+	static final int RUNS = 5; //timed runs per benchmark (after one warmup)
+	static Method allocatedBytes; //com.sun.management.ThreadMXBean.getCurrentThreadAllocatedBytes, null if there isn't one
+	static {
+		try {
+			allocatedBytes = Class.forName("com.sun.management.ThreadMXBean").getMethod("getCurrentThreadAllocatedBytes");
+		} catch (ReflectiveOperationException e) {
+			System.out.println("allocation counts unavailable, they will show as 0");
+		}
+	}
+
+	static void smallMap(File f, int i) throws IOException {
+		//a short map for library tests, only the header really matters
+		try (PrintWriter out = new PrintWriter(f, "UTF-8")) {
+			out.println("osu file format v14");
+			out.println("[Metadata]");
+			out.println("Title:Song "+i);
+			out.println("Artist:OsuBenchmark");
+			out.println("Version:Insane");
+			out.println("[Difficulty]");
+			out.println("HPDrainRate:5");
+			out.println("CircleSize:4");
+			out.println("OverallDifficulty:8");
+			out.println("ApproachRate:9");
+			out.println("SliderMultiplier:1.4");
+			out.println("[TimingPoints]");
+			out.println("0,333.333333333333,4,2,0,60,1,0");
+			out.println("[HitObjects]");
+			for (int j = 0; j<100; j++) {
+				out.println((j*5%512)+","+(j*7%384)+","+(1000+j*150)+",1,0,0:0:0:0:");
+			}
+		}
+	}
+
+	static void delete(File f) {
+		File[] children = f.listFiles();
+		if (children != null) for (File c : children) delete(c);
+		f.delete();
+	}
+
+	static void unstack(OsuParser p, ParsedBeatmap parsed) {
+		//put circles back where the map file has them
+		for (int i = 0; i<parsed.circleX.length; i++) {
+			parsed.circleX[i] = p.circles.get(i)[0];
+			parsed.circleY[i] = p.circles.get(i)[1];
+		}
+	}
+
+	interface Task {
+		void run() throws IOException;
+	}
+
+	static double time(Task t) throws IOException {
+		//average time of RUNS runs in ms
+		t.run();
+		long total = 0;
+		for (int i = 0; i<RUNS; i++) {
+			long start = System.nanoTime();
+			t.run();
+			total+= System.nanoTime()-start;
+		}
+		return total/(RUNS*1e6);
+	}
+
+	static void sleepNanos(long nanos) {
+		try {
+			Thread.sleep(nanos/1000000, (int)(nanos%1000000));
+		} catch (InterruptedException e) {}
+	}
+
+	static long allocated() {
+		//bytes allocated by this thread so far, 0 if the JVM can't tell (the count is a HotSpot extension, looked up
+		//by reflection so other JVMs still run the benchmarks)
+		if (allocatedBytes == null) return 0;
+		try {
+			return (Long) allocatedBytes.invoke(ManagementFactory.getThreadMXBean());
+		} catch (ReflectiveOperationException e) {
+			return 0;
+		}
+	}
+
+	static int[][][] sliderControls(int sliders) {
+		//random control points with a red anchor every few points
+		Random r = new Random(727);
+		int[][][] controls = new int[sliders][][];
+		for (int i = 0; i<sliders; i++) {
+			int n = 3+r.nextInt(28);
+			controls[i] = new int[n][2];
+			for (int j = 0; j<n; j++) {
+				if (j>1 && j<n-1 && r.nextInt(5) == 0) {
+					controls[i][j] = controls[i][j-1].clone();
+					continue;
+				}
+				controls[i][j][0] = r.nextInt(512);
+				controls[i][j][1] = r.nextInt(384);
+			}
+		}
+		return controls;
+	}
+
+	static void clearLists() {
+		OsuReader.circleList.clear();
+		OsuReader.sliderList.clear();
+		OsuReader.spinnerList.clear();
+		OsuReader.breakList.clear();
+	}
+
+	static File stressMap(int objects, double sliderRatio) throws IOException {
+		return stressMap(objects, sliderRatio, 0);
+	}
+
+	static File stressMap(int objects, double sliderRatio, double stackRatio) throws IOException {
+		//random but valid map, fixed seed so runs are comparable
+		//stackRatio is the chance a note is put right on top of the one before it
+		Random r = new Random(727);
+		File f = File.createTempFile("stress", ".osu");
+		try (PrintWriter out = new PrintWriter(f, "UTF-8")) {
+			out.println("osu file format v14");
+			out.println();
+			out.println("[Metadata]");
+			out.println("Title:Stress Test");
+			out.println("Artist:OsuBenchmark");
+			out.println("Version:"+objects);
+			out.println();
+			out.println("[Difficulty]");
+			out.println("HPDrainRate:5");
+			out.println("CircleSize:4");
+			out.println("OverallDifficulty:8");
+			out.println("ApproachRate:9");
+			out.println("SliderMultiplier:1.4");
+			out.println("SliderTickRate:1");
+			out.println();
+			out.println("[Events]");
+			out.println("0,0,\"bg.jpg\",0,0");
+			out.println("2,"+(objects*50)+","+(objects*50+5000));
+			out.println();
+			out.println("[TimingPoints]");
+			for (int t = 0; t<objects*200; t+=20000) {
+				out.println(t+",333.333333333333,4,2,0,60,1,0");
+				out.println((t+10000)+","+(-50-r.nextInt(100))+",4,2,0,60,0,0");
+			}
+			out.println();
+			out.println("[HitObjects]");
+			int time = 1000;
+			int x = 0;
+			int y = 0;
+			for (int i = 0; i<objects; i++) {
+				if (stackRatio == 0 || r.nextDouble()>=stackRatio) {
+					x = r.nextInt(512);
+					y = r.nextInt(384);
+				}
+				int type = (i%8 == 0 ? 4 : 0);
+				if (i%200 == 199) {
+					out.println("256,192,"+time+","+(8|type)+",0,"+(time+2000)+",0:0:0:0:");
+					time+= 2200;
+				} else if (r.nextDouble()<sliderRatio) {
+					StringBuilder s = new StringBuilder(x+","+y+","+time+","+(2|type)+",0,B");
+					int n = 2+r.nextInt(4);
+					for (int j = 0; j<n; j++) s.append("|"+r.nextInt(512)+":"+r.nextInt(384));
+					s.append(",1,"+(100+r.nextInt(200))+".5,0|0,0:0|0:0,0:0:0:0:");
+					out.println(s);
+					time+= 400;
+				} else {
+					out.println(x+","+y+","+time+","+(1|type)+",0,0:0:0:0:");
+					time+= 150;
+				}
+			}
+		}
+		return f;
+	}
+}
@@ -0,0 +1,261 @@
+/* osu! song select benchmarks
+ * The library index, song select frames, search, background thumbnails and star ratings over a generated library
+ */
+
+package osu;
+
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.Scanner;
+import java.util.concurrent.ForkJoinPool;
+
+class MenuBenchmark {
+
+	static void library() throws IOException {
+		//song select with 10000 maps: old list.txt read vs library index (first build, reopen, reopen after 10 maps changed)
+		int maps = 10000;
+		File root = Files.createTempDirectory("library").toFile();
+		try (PrintWriter list = new PrintWriter(new File(root, "list.txt"), "UTF-8")) {
+			for (int i = 0; i<maps; i++) {
+				File folder = new File(root, "map"+i);
+				folder.mkdir();
+				Bench.smallMap(new File(folder, "map.osu"), i);
+				list.println("Map "+i+",map"+i);
+			}
+		}
+		System.out.println("library: "+maps+" maps");
+
+		double text = Bench.time(() -> {
+			Scanner sc = new Scanner(new File(root, "list.txt"));
+			ArrayList<String[]> mapsList = new ArrayList<String[]>();
+			while (sc.hasNextLine()) mapsList.add(sc.nextLine().split(","));
+			sc.close();
+		});
+		long start = System.nanoTime();
+		new LibraryIndex(root).refresh();
+		double build = (System.nanoTime()-start)/1e6;
+		double reopen = Bench.time(() -> new LibraryIndex(root).open());
+		double refresh = Bench.time(() -> new LibraryIndex(root).refresh());
+		double changed = Bench.time(() -> {
+			//10 maps edited since the index was saved
+			for (int i = 0; i<10; i++) {
+				File map = new File(root, "map"+(i*997)+"/map.osu");
+				map.setLastModified(map.lastModified()+1000);
+			}
+			new LibraryIndex(root).refresh();
+		});
+		System.out.printf("  list.txt read %8.1f ms (names only)%n", text);
+		System.out.printf("  first build   %8.1f ms%n", build);
+		System.out.printf("  reopen        %8.1f ms (shown)%n", reopen);
+		System.out.printf("  refresh       %8.1f ms (background, nothing changed)%n", refresh);
+		System.out.printf("  10 changed    %8.1f ms (background)%n", changed);
+		Bench.delete(root);
+	}
+
+	static void menu() throws IOException {
+		//one song select frame with 10000 maps, scrolling one row per frame: every row and 150 fade lines vs visible
+		//cached rows and the baked fade
+		int winx = 1200, winy = 900;
+		ArrayList<LibraryEntry> maps = new ArrayList<LibraryEntry>();
+		for (int i = 0; i<10000; i++) {
+			LibraryEntry e = new LibraryEntry();
+			e.title = "Song "+i;
+			e.artist = "OsuBenchmark";
+			e.version = "Insane";
+			e.length = 180000+i;
+			maps.add(e);
+		}
+		Font title = new Font("Arial Rounded MT Bold", Font.PLAIN, 36);
+		Font info = new Font("Arial Rounded MT Bold", Font.PLAIN, 18);
+		MenuRows menuRows = new MenuRows(winx-600, 100, title, info, winx, winy);
+		BufferedImage screen = new BufferedImage(winx, winy, BufferedImage.TYPE_INT_ARGB);
+		Graphics2D g = screen.createGraphics();
+		g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+		int frames = 20;
+		System.out.println("menu: "+maps.size()+" maps, ms per frame");
+
+		double old = Bench.time(() -> {
+			for (int f = 0; f<frames; f++) {
+				int pos = 5000+f;
+				g.clearRect(0, 0, winx, winy);
+				for (int i = 0; i<maps.size(); i++) {
+					LibraryEntry e = maps.get(i);
+					g.setColor(Color.WHITE);
+					g.drawRect(100, winy/2-50+(i-pos)*150, winx-600, 100);
+					g.setFont(title);
+					g.drawString(e.title+" - "+e.artist, 120, winy/2+(i-pos)*150);
+					g.setFont(info);
+					g.drawString(String.format("[%s]  %d:%02d  %.0f BPM  CS%.1f AR%.1f OD%.1f HP%.1f  %d notes", e.version, e.length/60000, e.length/1000%60, e.bpm, e.CS, e.AR, e.OD, e.HP, e.circles+e.sliders+e.spinners), 120, winy/2+(i-pos)*150+35);
+				}
+				g.setColor(Color.BLACK);
+				g.fillRect(0, 0, winx, winy/6);
+				for (int i = 0; i<winy/6; i++) {
+					g.setColor(new Color(0,0,0,255-i*255*6/winy));
+					g.drawLine(0, i+winy/6, winx, i+winy/6);
+				}
+			}
+		});
+		double now = Bench.time(() -> {
+			for (int f = 0; f<frames; f++) {
+				int pos = 5000+f;
+				g.clearRect(0, 0, winx, winy);
+				int rowsAround = (winy/2+50)/150+1;
+				for (int i = Math.max(0, pos-rowsAround); i<=Math.min(maps.size()-1, pos+rowsAround); i++) {
+					g.drawImage(menuRows.row(maps.get(i)), 100, winy/2-50+(i-pos)*150, null);
+				}
+				g.drawImage(menuRows.fade, 0, 0, null);
+			}
+		});
+		System.out.printf("  every row     %8.2f ms%n", old/frames);
+		System.out.printf("  visible rows  %8.2f ms%n", now/frames);
+	}
+
+	static void prefetch() throws IOException {
+		//picking a 5000 note map in song select: loaded when it's picked vs already loaded while it was highlighted
+		File root = Files.createTempDirectory("prefetch").toFile();
+		File folder = new File(root, "map");
+		folder.mkdir();
+		File map = Bench.stressMap(5000, 0.3);
+		Files.move(map.toPath(), new File(folder, "map.osu").toPath());
+		javax.imageio.ImageIO.write(new BufferedImage(1920, 1080, BufferedImage.TYPE_INT_RGB), "jpg", new File(folder, "bg.jpg"));
+		System.out.println("prefetch: 5000 notes, 1920x1080 background");
+
+		double cold = 0, warm = 0;
+		for (int i = 0; i<=Bench.RUNS; i++) {
+			new File(folder, "map.cache").delete();
+			long start = System.nanoTime();
+			new MapPrefetcher(root).take("map");
+			if (i>0) cold+= (System.nanoTime()-start)/1e6;
+
+			new File(folder, "map.cache").delete();
+			MapPrefetcher prefetcher = new MapPrefetcher(root);
+			prefetcher.prefetch("map");
+			MapPrefetcher.get(prefetcher.future); //time spent highlighted
+			start = System.nanoTime();
+			prefetcher.take("map");
+			if (i>0) warm+= (System.nanoTime()-start)/1e6;
+		}
+		System.out.printf("  load on pick  %8.2f ms%n", cold/Bench.RUNS);
+		System.out.printf("  prefetched    %8.2f ms%n", warm/Bench.RUNS);
+		Bench.delete(root);
+	}
+
+	static void search() throws IOException {
+		//typing a search one letter at a time over 10000 maps: checking every map vs the piece index
+		Random r = new Random(727);
+		String[] words = {"night", "blue", "star", "love", "dream", "fire", "sky", "rain", "heart", "light"};
+		ArrayList<LibraryEntry> maps = new ArrayList<LibraryEntry>();
+		for (int i = 0; i<10000; i++) {
+			LibraryEntry e = new LibraryEntry();
+			e.title = words[r.nextInt(words.length)]+" "+words[r.nextInt(words.length)]+" "+i;
+			e.artist = "Artist "+r.nextInt(500);
+			e.version = i%3 == 0 ? "Insane" : "Hard";
+			maps.add(e);
+		}
+		String typed = "star night 7";
+		System.out.println("search: 10000 maps, typing \""+typed+"\"");
+
+		LibrarySearch index = new LibrarySearch();
+		double build = Bench.time(() -> index.index(maps));
+		double old = Bench.time(() -> {
+			for (int k = 1; k<=typed.length(); k++) {
+				String[] q = typed.substring(0, k).trim().split(" +");
+				ArrayList<LibraryEntry> results = new ArrayList<LibraryEntry>();
+				for (LibraryEntry e : maps) {
+					String t = (e.title+" "+e.artist+" "+e.version).toLowerCase();
+					boolean all = true;
+					for (String w : q) all&= t.contains(w);
+					if (all) results.add(e);
+				}
+			}
+		});
+		double now = Bench.time(() -> {
+			index.query = "";
+			for (int k = 1; k<=typed.length(); k++) index.search(maps, typed.substring(0, k));
+		});
+		System.out.printf("  index build   %8.2f ms (once per library)%n", build);
+		System.out.printf("  every map     %8.3f ms per key%n", old/typed.length());
+		System.out.printf("  index         %8.3f ms per key (%d results)%n", now/typed.length(), index.search(maps, typed).size());
+	}
+
+	static void thumbs() throws IOException {
+		//backgrounds for 30 song select rows (1920x1080 jpgs): full decode every time vs thumbnails made once, read back
+		//from disk, and from memory
+		int maps = 30;
+		File root = Files.createTempDirectory("thumbs").toFile();
+		Random r = new Random(727);
+		BufferedImage bg = new BufferedImage(1920, 1080, BufferedImage.TYPE_INT_RGB);
+		for (int i = 0; i<maps; i++) {
+			Graphics2D g = bg.createGraphics();
+			g.setColor(new Color(r.nextInt()));
+			g.fillRect(0, 0, 1920, 1080);
+			g.setColor(new Color(r.nextInt()));
+			g.fillOval(r.nextInt(1000), r.nextInt(500), 900, 500);
+			g.dispose();
+			File folder = new File(root, "map"+i);
+			folder.mkdir();
+			javax.imageio.ImageIO.write(bg, "jpg", new File(folder, "bg.jpg"));
+		}
+		System.out.println("thumbs: "+maps+" maps, 1920x1080 backgrounds");
+
+		double full = Bench.time(() -> {
+			for (int i = 0; i<maps; i++) OsuClasses.loadImage(root+"/map"+i+"/bg.jpg");
+		});
+		double made = Bench.time(() -> {
+			Bench.delete(new File(root, "thumbs"));
+			Thumbnails t = new Thumbnails(root);
+			for (int i = 0; i<maps; i++) t.read("map"+i);
+		});
+		double disk = Bench.time(() -> {
+			Thumbnails t = new Thumbnails(root);
+			for (int i = 0; i<maps; i++) t.read("map"+i);
+		});
+		Thumbnails t = new Thumbnails(root);
+		for (int i = 0; i<maps; i++) t.load("map"+i);
+		double memory = Bench.time(() -> {
+			for (int i = 0; i<maps; i++) t.get("map"+i);
+		});
+		System.out.printf("  full decode   %8.2f ms per row%n", full/maps);
+		System.out.printf("  first time    %8.2f ms per row (workers)%n", made/maps);
+		System.out.printf("  from disk     %8.3f ms per row (workers)%n", disk/maps);
+		System.out.printf("  from memory   %8.4f ms per row%n", memory/maps);
+		Bench.delete(root);
+	}
+
+	static void stars() throws IOException {
+		//star ratings for 100 maps of 2000 notes: one after another vs one map per task on the common pool
+		int maps = 100;
+		File[] files = new File[maps];
+		for (int i = 0; i<maps; i++) files[i] = Bench.stressMap(2000, 0.1+0.5*i/maps);
+		LibraryEntry[] entries = new LibraryEntry[maps];
+		for (int i = 0; i<maps; i++) entries[i] = new LibraryEntry();
+		LibraryEntry[] rated = new LibraryEntry[maps];
+		System.out.println("stars: "+maps+" maps, 2000 notes, "+ForkJoinPool.commonPool().getParallelism()+" pool threads");
+
+		double serial = Bench.time(() -> {
+			for (int i = 0; i<maps; i++) rated[i] = LibraryIndex.rate(entries[i], files[i]);
+		});
+		double parallel = Bench.time(() -> {
+			ArrayList<java.util.concurrent.ForkJoinTask<?>> tasks = new ArrayList<java.util.concurrent.ForkJoinTask<?>>();
+			for (int i = 0; i<maps; i++) {
+				int m = i;
+				tasks.add(ForkJoinPool.commonPool().submit(() -> rated[m] = LibraryIndex.rate(entries[m], files[m])));
+			}
+			for (java.util.concurrent.ForkJoinTask<?> t : tasks) t.join();
+		});
+		System.out.printf("  one by one    %8.1f ms%n", serial);
+		System.out.printf("  parallel      %8.1f ms%n", parallel);
+		System.out.printf("  ratings       %.2f* (aim %.2f, speed %.2f) to %.2f* (aim %.2f, speed %.2f)%n", rated[0].stars, rated[0].aim,
+				rated[0].speed, rated[maps-1].stars, rated[maps-1].aim, rated[maps-1].speed);
+		for (File f : files) f.delete();
+	}
+}
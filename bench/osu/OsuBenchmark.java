@@ -0,0 +1,39 @@
+/* osu! load and render benchmarks
+ * Not part of the game (kept out of the bruhgames module), run on its own with the name of a benchmark (or nothing for all of them):
+ *   javac -d out osu/*.java hsa2/*.java bench/osu/*.java
+ *   java -cp out osu.OsuBenchmark parse
+ * Stress maps are generated into the temp folder so no real maps are needed
+ */
+
+package osu;
+
+import java.io.IOException;
+
+public class OsuBenchmark {
+	public static void main(String[] args) throws IOException {
+		String which = args.length>0 ? args[0] : "all";
+		if (which.equals("all") || which.equals("parse")) ParseBenchmark.parse();
+		if (which.equals("all") || which.equals("cache")) ParseBenchmark.cache();
+		if (which.equals("all") || which.equals("restart")) ParseBenchmark.restart();
+		if (which.equals("all") || which.equals("slider")) SliderBenchmark.slider();
+		if (which.equals("all") || which.equals("bezier")) SliderBenchmark.bezier();
+		if (which.equals("all") || which.equals("curves")) SliderBenchmark.curves();
+		if (which.equals("all") || which.equals("workers")) SliderBenchmark.workers();
+		if (which.equals("all") || which.equals("lazy")) SliderBenchmark.lazy();
+		if (which.equals("all") || which.equals("stack")) ParseBenchmark.stack();
+		if (which.equals("all") || which.equals("library")) MenuBenchmark.library();
+		if (which.equals("all") || which.equals("menu")) MenuBenchmark.menu();
+		if (which.equals("all") || which.equals("prefetch")) MenuBenchmark.prefetch();
+		if (which.equals("all") || which.equals("search")) MenuBenchmark.search();
+		if (which.equals("all") || which.equals("thumbs")) MenuBenchmark.thumbs();
+		if (which.equals("all") || which.equals("stars")) MenuBenchmark.stars();
+		if (which.equals("all") || which.equals("queue")) RenderBenchmark.queue();
+		if (which.equals("all") || which.equals("window")) RenderBenchmark.window();
+		if (which.equals("all") || which.equals("body")) RenderBenchmark.body();
+		if (which.equals("all") || which.equals("faces")) RenderBenchmark.faces();
+		if (which.equals("all") || which.equals("canvas")) RenderBenchmark.canvas();
+		if (which.equals("all") || which.equals("blit")) RenderBenchmark.blit();
+		if (which.equals("all") || which.equals("handoff")) RenderBenchmark.handoff();
+		if (which.equals("all") || which.equals("present")) RenderBenchmark.present();
+	}
+}
@@ -0,0 +1,268 @@
+/* osu! map loading benchmarks
+ * Reading .osu files, the binary cache, restarting a play and note stacking, each against the old code kept below
+ */
+
+package osu;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Scanner;
+
+class ParseBenchmark {
+
+	static void parse() throws IOException {
+		//loading a map: old setParameters Scanner loop vs OsuParser and stamping the notes, both end with the circles built and stacked
+		//circles and spinners only so slider path math doesn't drown out the parsing itself
+		File map = Bench.stressMap(50000, 0);
+		System.out.println("parse: "+map.length()/1024+" KB, 50000 objects");
+		double old = Bench.time(() -> {
+			try (Scanner sc = new Scanner(map)) {
+				new OldReader().setParameters(sc);
+			}
+		});
+		double now = Bench.time(() -> {
+			Bench.clearLists();
+			new OsuParser().parse(map).stamp();
+		});
+		System.out.printf("  setParameters %8.1f ms%n", old);
+		System.out.printf("  OsuParser     %8.1f ms%n", now);
+		Bench.clearLists();
+		map.delete();
+	}
+
+	static void cache() throws IOException {
+		//full text parse vs loading the binary cache
+		File map = Bench.stressMap(5000, 0.35);
+		System.out.println("cache: 5000 objects, 35% sliders");
+		BeatmapCache cache = new BeatmapCache(map);
+		cache.save(map, new OsuParser().parse(map));
+		double parse = Bench.time(() -> new OsuParser().parse(map));
+		double load = Bench.time(() -> {
+			if (cache.load(map) == null) throw new IOException("cache not valid");
+		});
+		System.out.printf("  parse         %8.1f ms%n", parse);
+		System.out.printf("  cache load    %8.1f ms (%d KB)%n", load, cache.file.length()/1024);
+		cache.file.delete();
+		map.delete();
+	}
+
+	static void restart() throws IOException {
+		//pressing R: clear the old play and stamp a new one out of the parsed map
+		File map = Bench.stressMap(10000, 0.35);
+		ParsedBeatmap parsed = new OsuParser().parse(map);
+		System.out.println("restart: 10000 objects, 35% sliders");
+		double restart = Bench.time(() -> {
+			Bench.clearLists();
+			parsed.stamp();
+		});
+		System.out.printf("  stamp         %8.2f ms%n", restart);
+		map.delete();
+	}
+
+	static void stack() throws IOException {
+		//stacking: old circle-only pass (quadratic in stack height) vs one visit per note with a position hash
+		File map = Bench.stressMap(50000, 0.2, 0.99);
+		OsuParser p = new OsuParser();
+		ParsedBeatmap parsed = p.parse(map);
+		int window = OsuReader.getARtime(parsed.AR)[0];
+		System.out.println("stack: 50000 objects, 20% sliders, 99% stacked on the note before");
+		double old = Bench.time(() -> {
+			Bench.unstack(p, parsed);
+			oldStack(parsed.circleX, parsed.circleY, parsed.circleTime, window);
+		});
+		double now = Bench.time(() -> {
+			Bench.unstack(p, parsed);
+			parsed.stack(window);
+		});
+		System.out.printf("  nested loops  %8.1f ms (circles only)%n", old);
+		System.out.printf("  position hash %8.1f ms (circles and slider heads)%n", now);
+		map.delete();
+	}
+
+	static class OldReader {
+		//the old OsuReader.setParameters/addCircle/addSlider/sliderPoints, kept here as the baseline
+		//its own copy of the old play state; old sliders only kept their points, so those are all that is stored
+		String songName = "";
+		double HP, CS, OD, AR, SM;
+		double[] beatLength = new double[2];
+		int[] ARtime = new int[2];
+		int noteCombo = 0, endTime = 0;
+		ArrayList<int[]> breakList = new ArrayList<int[]>();
+		ArrayList<TimingPoint> pointList = new ArrayList<TimingPoint>();
+		ArrayList<HitCircle> circleList = new ArrayList<HitCircle>();
+		ArrayList<int[][]> sliderList = new ArrayList<int[][]>();
+		ArrayList<Spinner> spinnerList = new ArrayList<Spinner>();
+
+		void setParameters(Scanner sc) {
+			boolean events = false;
+			boolean timingPoints = false;
+			boolean hitObjects = false;
+			int[] ID = {0,0}; //circle,slider # (chronological)
+
+			String text = "";
+			while (sc.hasNextLine()) {
+				text = sc.nextLine();
+				if (text.contains("Title:")) {
+					String[] split = text.split(":");
+					songName+= split[1]+" - ";
+				}
+				if (text.contains("Artist:")) {
+					String[] split = text.split(":");
+					songName+= split[1];
+				}
+				if (HP ==0) HP = setDiff("HPDrainRate",text);
+				if (CS ==0) CS = setDiff("CircleSize",text);
+				if (OD ==0) OD = setDiff("OverallDifficulty",text);
+				if (AR ==0) AR = setDiff("ApproachRate",text);
+				if (SM ==0) SM = setDiff("SliderMultiplier",text);
+				if (text.contains("[Events]")) events = true;
+				if (text.contains("[TimingPoints]")) {
+					events = false;
+					timingPoints = true;
+				}
+				if (text.contains("[Colours]")) timingPoints = false;
+				if (text.contains("[HitObjects]")) hitObjects = true;
+
+				if (events) {
+					if (text.startsWith("2,") || text.startsWith("Break,")) {
+						String[] split = text.split(",");
+						breakList.add(new int[] {Integer.parseInt(split[1]),Integer.parseInt(split[2])});
+					}
+				}
+
+				if (timingPoints) {
+					if (text.contains(",")) {
+						String[] split = text.split(",");
+						pointList.add(new TimingPoint(Integer.parseInt(split[0]),Double.parseDouble(split[1])));
+					}
+				}
+
+				if (hitObjects && text.contains(",")) {
+					String[] split = text.split(",");
+					if (!text.contains("B") && !text.contains("C") && !text.contains("L") && !text.contains("P")) {
+						if (split.length>5 && !split[5].contains(":")) {
+							spinnerList.add(new Spinner(Integer.parseInt(split[2]),Integer.parseInt(split[5])));
+							noteCombo = 0;
+							if (Integer.parseInt(split[5]) > endTime) endTime = Integer.parseInt(split[5]);
+						} else addCircle(split, ID);
+					} else addSlider(split, ID);
+				}
+			}
+
+			if (AR<=5) {
+				ARtime[0] = (int)(1200+600*(5-AR)/5);
+				ARtime[1] = (int)(800+400*(5-AR)/5);
+			}
+			if (AR>5) {
+				ARtime[0] = (int)(1200-750*(AR-5)/5);
+				ARtime[1] = (int)(800-500*(AR-5)/5);
+			}
+
+			for (int i = 0; i<circleList.size(); i++) {
+				int p = 0;
+				while (true) {
+					if (i+p+1>=circleList.size()) break;
+					if (circleList.get(i).x == circleList.get(i+p+1).x && circleList.get(i).y == circleList.get(i+p+1).y && circleList.get(i+p+1).time-circleList.get(i+p).time < ARtime[0]) {
+						p++;
+					}
+					else break;
+				}
+				while (p>0) {
+					for (int j = 0; j<p; j++) {
+						circleList.get(i+j).x-=5;
+						circleList.get(i+j).y-=5;
+					}
+					p--;
+				}
+			}
+		}
+
+		double setDiff(String s, String text) {
+			if (text.contains(s)) {
+				String[] split = text.split(":");
+				return Double.parseDouble(split[1]);
+			}
+			return 0;
+		}
+
+		void addCircle(String[] split, int[] ID) {
+			if (Integer.parseInt(split[3]) == 1) {
+				noteCombo++;
+			} else {
+				noteCombo = 1;
+			}
+			circleList.add(new HitCircle(Integer.parseInt(split[0])*3/2,Integer.parseInt(split[1])*3/2,Integer.parseInt(split[2]),ID[0],noteCombo));
+			if (Integer.parseInt(split[2]) > endTime) endTime = Integer.parseInt(split[2]);
+			ID[0]++;
+		}
+
+		void addSlider(String[] split, int[] ID) {
+			int[][] points = sliderPoints(split);
+			int time = Integer.parseInt(split[2]);
+
+			double SV = 1;
+			for (int i = 0; i<pointList.size(); i++) {
+				if (pointList.size() == 0) break;
+				TimingPoint a = pointList.get(i);
+				if (a.time <= time) {
+					if (a.beatL>=0) beatLength[0] = a.beatL;
+					if (a.beatL<=0) {
+						beatLength[1] = a.beatL;
+						if (a.time == time) SV = -100/beatLength[1];
+					}
+					pointList.remove(i);
+					i--;
+				}
+			}
+
+			double length = Double.parseDouble(split[7]);
+			double duration = length*beatLength[0]/(SM*100*SV);
+
+			if (Integer.parseInt(split[3]) == 2) {
+				noteCombo++;
+			} else {
+				noteCombo = 1;
+			}
+
+			sliderList.add(points);
+			if (time+duration*Integer.parseInt(split[6]) > endTime) endTime = (int)(time+duration*Integer.parseInt(split[6]));
+			ID[1]++;
+		}
+
+		int[][] sliderPoints(String[] s) {
+			//oldSliderCalc does the *3/2 itself
+			String[] sliderStuff = s[5].split("\\|");
+			int[][] points = new int[sliderStuff.length][2];
+			points[0][0] = Integer.parseInt(s[0]);
+			points[0][1] = Integer.parseInt(s[1]);
+			for (int i = 1; i<sliderStuff.length; i++) {
+				String[] point = sliderStuff[i].split(":");
+				points[i][0] = Integer.parseInt(point[0]);
+				points[i][1] = Integer.parseInt(point[1]);
+			}
+			return SliderBenchmark.oldSliderCalc(points, (int) Math.round(Double.parseDouble(s[7])));
+		}
+	}
+
+	static void oldStack(int[] circleX, int[] circleY, int[] circleTime, int window) {
+		//the old stacking loop from setParameters, kept here as the baseline
+		for (int i = 0; i<circleX.length; i++) {
+			int p = 0;
+			while (true) {
+				if (i+p+1>=circleX.length) break;
+				if (circleX[i] == circleX[i+p+1] && circleY[i] == circleY[i+p+1] && circleTime[i+p+1]-circleTime[i+p] < window) {
+					p++;
+				}
+				else break;
+			}
+			while (p>0) {
+				for (int j = 0; j<p; j++) {
+					circleX[i+j]-=5;
+					circleY[i+j]-=5;
+				}
+				p--;
+			}
+		}
+	}
+}
@@ -0,0 +1,477 @@
+/* osu! play and rendering benchmarks
+ * Picking and judging notes every frame, drawing notes and getting finished frames onto the window (hsa2 ConsoleCanvas)
+ */
+
+package osu;
+
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+
+class RenderBenchmark {
+
+	static void queue() throws IOException {
+		//picking which notes to draw and in what order, every 16ms frame through a 10000 note map at AR0 (1800ms on
+		//screen): old per frame list with selection sort and ID lookups vs reverse walk of the merged note array
+		File map = Bench.stressMap(10000, 0.35);
+		ParsedBeatmap parsed = new OsuParser().parse(map);
+		int ar = 1800, fade = 700, end = parsed.endTime;
+		System.out.println("queue: 10000 objects, 35% sliders, "+(end/16)+" frames");
+		long[] drawn = new long[2];
+
+		double old = Bench.time(() -> {
+			Bench.clearLists();
+			parsed.stamp();
+			ArrayList<HitCircle> circles = OsuReader.circleList;
+			ArrayList<Slider> sliders = OsuReader.sliderList;
+			for (int t = 0; t<end; t+=16) {
+				for (int i = sliders.size()-1; i>=0; i--) if (sliders.get(i).time+sliders.get(i).duration*sliders.get(i).slides<t-fade) sliders.remove(i);
+				for (int i = circles.size()-1; i>=0; i--) if (circles.get(i).time<t-fade) circles.remove(i);
+				ArrayList<int[]> toDraw = new ArrayList<int[]>();
+				for (Slider a : sliders) if (a.time<=t+ar) toDraw.add(new int[] {a.time, 1, a.ID});
+				for (HitCircle a : circles) if (a.time<=t+ar) toDraw.add(new int[] {a.time, 0, a.ID});
+				for (int i = 0; i<toDraw.size(); i++) {
+					int[] highest = {-1,-1};
+					for (int j = 0; j<toDraw.size(); j++) {
+						if (toDraw.get(j)[0]>highest[0]) {
+							highest[0] = toDraw.get(j)[0];
+							highest[1] = j;
+						}
+					}
+					int[] o = toDraw.get(highest[1]);
+					if (o[1] == 0) for (HitCircle c : circles) {
+						if (c.ID == o[2]) {
+							drawn[0]++;
+							break;
+						}
+					}
+					if (o[1] == 1) for (Slider c : sliders) {
+						if (c.ID == o[2]) {
+							drawn[0]++;
+							break;
+						}
+					}
+					o[0] = -1;
+				}
+			}
+		});
+		double now = Bench.time(() -> {
+			Bench.clearLists();
+			parsed.stamp();
+			ArrayList<HitCircle> circles = OsuReader.circleList;
+			ArrayList<Slider> sliders = OsuReader.sliderList;
+			HitObject[] notes = new HitObject[circles.size()+sliders.size()];
+			int n = 0;
+			for (HitCircle a : circles) notes[n++] = a;
+			for (Slider a : sliders) notes[n++] = a;
+			java.util.Arrays.sort(notes, java.util.Comparator.comparingInt(a -> a.time));
+			int head = 0, tail = 0;
+			for (int t = 0; t<end; t+=16) {
+				for (int i = sliders.size()-1; i>=0; i--) {
+					Slider a = sliders.get(i);
+					if (a.time+a.duration*a.slides<t-fade) {
+						a.removed = true;
+						sliders.remove(i);
+					}
+				}
+				for (int i = circles.size()-1; i>=0; i--) {
+					if (circles.get(i).time<t-fade) {
+						circles.get(i).removed = true;
+						circles.remove(i);
+					}
+				}
+				while (tail<notes.length && notes[tail].time<=t+ar) tail++;
+				while (head<tail && notes[head].removed) head++;
+				for (int i = tail-1; i>=head; i--) {
+					if (!notes[i].removed) drawn[1]++;
+				}
+			}
+		});
+		System.out.printf("  toDraw list   %8.4f ms per frame%n", old/(end/16));
+		System.out.printf("  note window   %8.4f ms per frame%n", now/(end/16));
+		System.out.printf("  same notes drawn: %b%n", drawn[0] == drawn[1]);
+		map.delete();
+	}
+
+	static void window() throws IOException {
+		//judging every 16ms frame of a 20000 note map (expire finished notes, look for notes in the hit window):
+		//old full list scans with removal vs active windows, first and last quarter of the map
+		File map = Bench.stressMap(20000, 0.35);
+		ParsedBeatmap parsed = new OsuParser().parse(map);
+		int ar = 1200, fade = 700, end = parsed.endTime;
+		System.out.println("window: 20000 objects, 35% sliders");
+		long[] found = new long[2];
+
+		double[] old = new double[2];
+		double[] now = new double[2];
+		for (int run = 0; run<=Bench.RUNS; run++) {
+			Bench.clearLists();
+			parsed.stamp();
+			ArrayList<HitCircle> circles = new ArrayList<HitCircle>(OsuReader.circleList);
+			ArrayList<Slider> sliders = new ArrayList<Slider>(OsuReader.sliderList);
+			for (int t = 0; t<end; t+=16) {
+				long start = System.nanoTime();
+				for (int i = sliders.size()-1; i>=0; i--) {
+					Slider a = sliders.get(i);
+					if (a.time<=t+100) found[0]++;
+					if (a.time+a.duration*a.slides<=t-fade) sliders.remove(i);
+				}
+				for (int i = circles.size()-1; i>=0; i--) {
+					HitCircle a = circles.get(i);
+					if (a.time<=t+100) found[0]++;
+					if (a.time<=t-fade) circles.remove(i);
+				}
+				quarter(old, run, t, end, System.nanoTime()-start);
+			}
+
+			Bench.clearLists();
+			parsed.stamp();
+			ActiveWindow<HitCircle> activeCircles = new ActiveWindow<HitCircle>(OsuReader.circleList, new HitCircle[0]);
+			ActiveWindow<Slider> activeSliders = new ActiveWindow<Slider>(OsuReader.sliderList, new Slider[0]);
+			for (int t = 0; t<end; t+=16) {
+				long start = System.nanoTime();
+				activeCircles.update(t+ar);
+				activeSliders.update(t+ar);
+				for (int i = activeSliders.tail-1; i>=activeSliders.head; i--) {
+					Slider a = activeSliders.notes[i];
+					if (a.removed) continue;
+					if (a.time<=t+100) found[1]++;
+					if (a.time+a.duration*a.slides<=t-fade) a.removed = true;
+				}
+				for (int i = activeCircles.tail-1; i>=activeCircles.head; i--) {
+					HitCircle a = activeCircles.notes[i];
+					if (a.removed) continue;
+					if (a.time<=t+100) found[1]++;
+					if (a.time<=t-fade) a.removed = true;
+				}
+				quarter(now, run, t, end, System.nanoTime()-start);
+			}
+		}
+		int frames = Bench.RUNS*(end/16)/4;
+		System.out.printf("  full lists    %8.4f ms per frame (first quarter) %8.4f ms (last quarter)%n", old[0]/frames, old[1]/frames);
+		System.out.printf("  active window %8.4f ms per frame (first quarter) %8.4f ms (last quarter)%n", now[0]/frames, now[1]/frames);
+		System.out.printf("  same notes found: %b%n", found[0] == found[1]);
+		map.delete();
+	}
+
+	static void body() throws IOException {
+		//8 sliders on screen (300px long, CS4) for 60 frames: antialiased circle per path point every frame vs the body
+		//image drawn once and blitted at the fade alpha
+		int winx = 1200, winy = 900, frames = 60, size = (int)(54.4-4.48*4)*3;
+		int[][][] controls = Bench.sliderControls(8);
+		SliderPath path = new SliderPath();
+		Slider[] sliders = new Slider[controls.length];
+		for (int i = 0; i<controls.length; i++) {
+			sliders[i] = new Slider(new SliderShape('B', controls[i], 300), 0, 0, 500, 1, i, 1);
+			sliders[i].width = sliders[i].height = size;
+			sliders[i].points = path.build('B', controls[i], 300);
+		}
+		BufferedImage screen = new BufferedImage(winx, winy, BufferedImage.TYPE_4BYTE_ABGR); //same as the GraphicsConsole buffer
+		Graphics2D g = screen.createGraphics();
+		g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+		System.out.println("body: "+sliders.length+" sliders, "+sliders[0].points.length+" points each, ms per frame");
+
+		double old = Bench.time(() -> {
+			for (int f = 0; f<frames; f++) {
+				g.setComposite(java.awt.AlphaComposite.SrcOver);
+				g.clearRect(0, 0, winx, winy);
+				for (Slider a : sliders) {
+					g.setColor(new Color(0,128,255,(64+f*2)/4));
+					for (int[] p : a.points) g.fillOval(p[0]+150, p[1]+100, a.width, a.height);
+				}
+			}
+		});
+		double build = Bench.time(() -> {
+			for (Slider a : sliders) a.body = SliderPathLoader.body(a, a.points);
+		});
+		double now = Bench.time(() -> {
+			for (int f = 0; f<frames; f++) {
+				g.setComposite(java.awt.AlphaComposite.SrcOver);
+				g.clearRect(0, 0, winx, winy);
+				for (Slider a : sliders) {
+					g.setComposite(java.awt.AlphaComposite.getInstance(java.awt.AlphaComposite.SRC_OVER, (64+f*2)/192f));
+					g.drawImage(a.body, a.bodyX+150, a.bodyY+100, null);
+				}
+			}
+		});
+		System.out.printf("  circles       %8.2f ms%n", old/frames);
+		System.out.printf("  body image    %8.2f ms (%.2f ms to draw all bodies once)%n", now/frames, build);
+	}
+
+	static void faces() throws IOException {
+		//16 circles on screen (CS4, combos 1-16) for 60 frames: fill, outline and digits every frame vs one cached face
+		//blitted at the fade alpha
+		int winx = 1200, winy = 900, frames = 60, size = (int)(54.4-4.48*4)*3;
+		BufferedImage sprites = new BufferedImage(1280, 448, BufferedImage.TYPE_INT_ARGB); //stand in spritesheet
+		Graphics2D sg = sprites.createGraphics();
+		sg.setColor(Color.WHITE);
+		sg.setFont(new Font("Arial Rounded MT Bold", Font.PLAIN, 96));
+		for (int d = 0; d<10; d++) sg.drawString(""+d, 128*d+36, 160);
+		sg.dispose();
+		BufferedImage screen = new BufferedImage(winx, winy, BufferedImage.TYPE_4BYTE_ABGR);
+		Graphics2D g = screen.createGraphics();
+		g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+		CircleSprites circleSprites = new CircleSprites(sprites);
+		System.out.println("faces: 16 circles, ms per frame");
+
+		double old = Bench.time(() -> {
+			for (int f = 0; f<frames; f++) {
+				g.setComposite(java.awt.AlphaComposite.SrcOver);
+				g.clearRect(0, 0, winx, winy);
+				int alpha = 64+f*2;
+				for (int c = 1; c<=16; c++) {
+					int x = c*60, y = 100+c*30;
+					g.setComposite(java.awt.AlphaComposite.SrcOver);
+					g.setColor(new Color(0,128,255,alpha));
+					g.setStroke(new java.awt.BasicStroke(5));
+					g.fillOval(x, y, size, size);
+					g.setColor(new Color(255,255,255,alpha));
+					g.setStroke(new java.awt.BasicStroke(5));
+					g.drawOval(x, y, size, size);
+					g.setComposite(java.awt.AlphaComposite.getInstance(java.awt.AlphaComposite.SRC_OVER, alpha/192f));
+					if (c<10) g.drawImage(sprites, x, y, x+size, y+size, 128*c, 64, 128+128*c, 192, null);
+					else {
+						g.drawImage(sprites, x, y+size/8, x+size*3/4, y+size*7/8, 128, 64, 256, 192, null);
+						g.drawImage(sprites, x+size/4, y+size/8, x+size, y+size*7/8, 128*(c%10), 64, 128+128*(c%10), 192, null);
+					}
+				}
+			}
+		});
+		double now = Bench.time(() -> {
+			for (int f = 0; f<frames; f++) {
+				g.setComposite(java.awt.AlphaComposite.SrcOver);
+				g.clearRect(0, 0, winx, winy);
+				int alpha = 64+f*2;
+				for (int c = 1; c<=16; c++) {
+					g.setComposite(java.awt.AlphaComposite.getInstance(java.awt.AlphaComposite.SRC_OVER, alpha/192f));
+					g.drawImage(circleSprites.face(size, c, OsuReader.CIRCLE), c*60-CircleSprites.PAD, 100+c*30-CircleSprites.PAD, null);
+				}
+			}
+		});
+		System.out.printf("  drawn shapes  %8.2f ms%n", old/frames);
+		System.out.printf("  cached faces  %8.2f ms%n", now/frames);
+	}
+
+	static void canvas() throws IOException {
+		//ConsoleCanvas call pattern, 300 primitives a frame (filled circle, outline, faded image): a new Graphics2D, hint and
+		//BasicStroke per call vs one kept Graphics2D that only gets state that changed (cached stroke and composites)
+		int winx = 1200, winy = 900, frames = 60, calls = 300;
+		BufferedImage screen = new BufferedImage(winx, winy, BufferedImage.TYPE_4BYTE_ABGR);
+		BufferedImage sprite = new BufferedImage(16, 16, BufferedImage.TYPE_INT_ARGB);
+		Color[] colors = {new Color(0,128,255), Color.WHITE};
+		java.awt.AlphaComposite[] alphas = new java.awt.AlphaComposite[256];
+		for (int i = 0; i<256; i++) alphas[i] = java.awt.AlphaComposite.getInstance(java.awt.AlphaComposite.SRC_OVER, i/255f);
+		System.out.println("canvas: 300 small primitives, ms per frame and KB allocated per frame");
+		long[] bytes = new long[2];
+
+		double old = Bench.time(() -> {
+			long start = Bench.allocated();
+			for (int f = 0; f<frames; f++) {
+				for (int i = 0; i<calls; i++) {
+					int x = i*37%winx, y = i*53%winy;
+					Graphics2D g = (Graphics2D)screen.getGraphics();
+					g.setPaintMode();
+					if (i%3 == 2) {
+						g.setComposite(java.awt.AlphaComposite.getInstance(java.awt.AlphaComposite.SRC_OVER, (i%100)/100f));
+						g.drawImage(sprite, x, y, null);
+						continue;
+					}
+					g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+					g.setColor(colors[i%3]);
+					if (i%3 == 0) g.fillOval(x, y, 8, 8);
+					else {
+						g.setStroke(new java.awt.BasicStroke(2, java.awt.BasicStroke.CAP_ROUND, java.awt.BasicStroke.JOIN_ROUND));
+						g.drawOval(x, y, 8, 8);
+					}
+				}
+			}
+			bytes[0] = (Bench.allocated()-start)/frames;
+		});
+		Graphics2D g = screen.createGraphics();
+		java.awt.BasicStroke stroke = new java.awt.BasicStroke(2, java.awt.BasicStroke.CAP_ROUND, java.awt.BasicStroke.JOIN_ROUND);
+		Object[] state = new Object[3]; //color, composite, antialiasing last set on g
+		double now = Bench.time(() -> {
+			long start = Bench.allocated();
+			for (int f = 0; f<frames; f++) {
+				for (int i = 0; i<calls; i++) {
+					int x = i*37%winx, y = i*53%winy;
+					java.awt.AlphaComposite ac = i%3 == 2 ? alphas[Math.round((i%100)/100f*255)] : java.awt.AlphaComposite.SrcOver;
+					if (state[1] != ac) g.setComposite((java.awt.AlphaComposite)(state[1] = ac));
+					if (i%3 == 2) {
+						g.drawImage(sprite, x, y, null);
+						continue;
+					}
+					if (state[2] == null) g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, state[2] = RenderingHints.VALUE_ANTIALIAS_ON);
+					if (!colors[i%3].equals(state[0])) g.setColor((Color)(state[0] = colors[i%3]));
+					if (i%3 == 0) g.fillOval(x, y, 8, 8);
+					else {
+						if (g.getStroke() != stroke) g.setStroke(stroke);
+						g.drawOval(x, y, 8, 8);
+					}
+				}
+			}
+			bytes[1] = (Bench.allocated()-start)/frames;
+		});
+		g.dispose();
+		System.out.printf("  new graphics  %8.2f ms %8d KB%n", old/frames, bytes[0]/1024);
+		System.out.printf("  kept graphics %8.2f ms %8d KB%n", now/frames, bytes[1]/1024);
+	}
+
+	static void blit() throws IOException {
+		//a frame's worth of image drawing: full screen background plus 100 translucent 128px sprites at 75% alpha
+		//ImageIO formats onto the old 4 byte ABGR buffer vs images converted on load onto the compatible buffer
+		int winx = 1200, winy = 900, sprites = 100;
+		System.out.println("blit: background + 100 sprites, ms per frame");
+		java.awt.AlphaComposite fade = java.awt.AlphaComposite.getInstance(java.awt.AlphaComposite.SRC_OVER, 0.75f);
+		int[][] formats = {
+			{BufferedImage.TYPE_4BYTE_ABGR, BufferedImage.TYPE_3BYTE_BGR, BufferedImage.TYPE_4BYTE_ABGR}, //what jpg/png load as
+			{BufferedImage.TYPE_INT_RGB, BufferedImage.TYPE_INT_RGB, BufferedImage.TYPE_INT_ARGB}, //converted
+		};
+		String[] names = {"ImageIO      ", "compatible   "};
+		for (int k = 0; k<formats.length; k++) {
+			BufferedImage screen = new BufferedImage(winx, winy, formats[k][0]);
+			BufferedImage bg = new BufferedImage(winx, winy, formats[k][1]);
+			BufferedImage sprite = new BufferedImage(128, 128, formats[k][2]);
+			Graphics2D sg = sprite.createGraphics();
+			sg.setColor(new Color(255,255,255,160));
+			sg.fillOval(0, 0, 128, 128);
+			sg.dispose();
+			Graphics2D g = screen.createGraphics();
+			double t = Bench.time(() -> {
+				for (int f = 0; f<10; f++) {
+					g.setComposite(java.awt.AlphaComposite.SrcOver);
+					g.drawImage(bg, 0, 0, null);
+					g.setComposite(fade);
+					for (int i = 0; i<sprites; i++) g.drawImage(sprite, i*97%(winx-128), i*61%(winy-128), null);
+				}
+			});
+			g.dispose();
+			System.out.printf("  %s %8.2f ms%n", names[k], t/10);
+		}
+	}
+
+	static void handoff() throws IOException {
+		//game thread drawing 120 frames while a painter shows one every 16 ms: painter and game sharing one lock and
+		//buffer vs the ConsoleCanvas swap chain (3 buffers, newest finished frame passed over with one atomic swap)
+		int winx = 1200, winy = 900, frames = 120;
+		System.out.println("handoff: 120 frames, painter every 16 ms");
+		BufferedImage window = new BufferedImage(winx, winy, BufferedImage.TYPE_INT_RGB);
+		for (int mode = 0; mode<2; mode++) {
+			boolean swap = mode == 1;
+			Object lock = new Object();
+			BufferedImage[] buffers = {new BufferedImage(winx, winy, BufferedImage.TYPE_INT_RGB), new BufferedImage(winx, winy, BufferedImage.TYPE_INT_RGB), new BufferedImage(winx, winy, BufferedImage.TYPE_INT_RGB)};
+			java.util.concurrent.atomic.AtomicInteger ready = new java.util.concurrent.atomic.AtomicInteger(1);
+			boolean[] done = {false};
+			long[] waits = new long[3]; //total, max, count
+			Thread painter = new Thread(() -> {
+				int shown = 2;
+				Graphics2D wg = window.createGraphics();
+				while (!done[0]) {
+					long start = System.nanoTime();
+					if (swap) {
+						if ((ready.get() & 4) != 0) shown = ready.getAndSet(shown) & 3;
+						wg.drawImage(buffers[shown], 0, 0, null);
+					}
+					else synchronized (lock) {
+						wg.drawImage(buffers[0], 0, 0, null);
+					}
+					long t = System.nanoTime()-start;
+					waits[0]+=t;
+					waits[1] = Math.max(waits[1], t);
+					waits[2]++;
+					try {
+						Thread.sleep(16);
+					} catch (InterruptedException e) {}
+				}
+				wg.dispose();
+			});
+			painter.start();
+			long start = System.nanoTime();
+			int back = 0;
+			for (int f = 0; f<frames; f++) {
+				synchronized (lock) {
+					Graphics2D g = buffers[back].createGraphics();
+					g.setColor(Color.BLACK);
+					g.fillRect(0, 0, winx, winy);
+					g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+					g.setColor(new Color(0,128,255,128));
+					for (int i = 0; i<200; i++) g.fillOval(i*37%winx, i*53%winy, 100, 100);
+					g.dispose();
+				}
+				if (swap) back = ready.getAndSet(back | 4) & 3;
+			}
+			double total = (System.nanoTime()-start)/1e6;
+			done[0] = true;
+			try {
+				painter.join();
+			} catch (InterruptedException e) {}
+			System.out.printf("  %s  %8.1f fps   paint avg %6.2f ms  max %6.2f ms%n", swap ? "swap chain " : "shared lock", frames*1000/total, waits[0]/1e6/waits[2], waits[1]/1e6);
+		}
+	}
+
+	static void present() throws IOException {
+		//when finished frames reach the window, game loop drawing a 3 ms frame then sleeping 1 ms:
+		//a 16 ms Swing timer showing whatever is newest vs showing each frame right after it is drawn (240 fps target)
+		int winx = 1200, winy = 900, seconds = 2;
+		System.out.println("present: 2 s of frames, time between frames shown and age of the frame when shown");
+		BufferedImage frame = new BufferedImage(winx, winy, BufferedImage.TYPE_INT_RGB);
+		BufferedImage window = new BufferedImage(winx, winy, BufferedImage.TYPE_INT_RGB);
+		for (int mode = 0; mode<2; mode++) {
+			boolean active = mode == 1;
+			long[] finished = {0}; //when the newest frame was finished
+			long[] stats = new long[5]; //last present, interval sum, interval max, age sum, count
+			Object lock = new Object();
+			Runnable show = () -> {
+				long now = System.nanoTime();
+				synchronized (lock) {
+					if (finished[0] == 0) return;
+					Graphics2D wg = window.createGraphics();
+					wg.drawImage(frame, 0, 0, null);
+					wg.dispose();
+					now = System.nanoTime();
+					if (stats[0] != 0) {
+						stats[1]+=now-stats[0];
+						stats[2] = Math.max(stats[2], now-stats[0]);
+					}
+					stats[0] = now;
+					stats[3]+=now-finished[0];
+					stats[4]++;
+				}
+			};
+			javax.swing.Timer timer = new javax.swing.Timer(1000/60, e -> show.run());
+			if (!active) timer.start();
+			long end = System.nanoTime()+seconds*1000000000L, frameNanos = 1000000000L/240, next = 0;
+			while (System.nanoTime()<end) {
+				synchronized (lock) {
+					Graphics2D g = frame.createGraphics();
+					long busy = System.nanoTime()+3000000;
+					while (System.nanoTime()<busy) g.fillRect(0, 0, 64, 64); //stand in for drawing a frame
+					g.dispose();
+					finished[0] = System.nanoTime();
+				}
+				if (active) {
+					long now = System.nanoTime();
+					next = next+frameNanos<now-frameNanos ? now : next+frameNanos;
+					if (next>now) Bench.sleepNanos(next-now);
+					show.run();
+				}
+				Bench.sleepNanos(1000000);
+			}
+			timer.stop();
+			System.out.printf("  %s  %5.1f ms apart (max %5.1f)   frame %5.1f ms old when shown%n", active ? "active" : "timer ",
+					stats[1]/1e6/Math.max(1, stats[4]-1), stats[2]/1e6, stats[3]/1e6/Math.max(1, stats[4]));
+		}
+	}
+
+	static void quarter(double[] total, int run, int t, int end, long ns) {
+		//adds a frame's time to the first or last quarter total (run 0 is warmup)
+		if (run == 0) return;
+		if (t<end/4) total[0]+=ns/1e6;
+		else if (t>=end-end/4) total[1]+=ns/1e6;
+	}
+}
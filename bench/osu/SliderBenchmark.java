@@ -0,0 +1,234 @@
+/* osu! slider path benchmarks
+ * Building slider paths at load and during play, each against the old sliderCalc kept below
+ */
+
+package osu;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+class SliderBenchmark {
+
+	static void slider() throws IOException {
+		//slider path building on load: old dense sliderCalc vs SliderPath, time and bytes allocated
+		int[][][] controls = Bench.sliderControls(2000);
+		System.out.println("slider: 2000 sliders, 3-30 control points");
+		SliderPath path = new SliderPath();
+		long[] bytes = new long[2];
+		double old = Bench.time(() -> {
+			long start = Bench.allocated();
+			for (int[][] c : controls) oldSliderCalc(c, 200);
+			bytes[0] = Bench.allocated()-start;
+		});
+		double now = Bench.time(() -> {
+			long start = Bench.allocated();
+			for (int[][] c : controls) path.build('B', c, 200);
+			bytes[1] = Bench.allocated()-start;
+		});
+		System.out.printf("  sliderCalc    %8.1f ms %8d KB%n", old, bytes[0]/1024);
+		System.out.printf("  SliderPath    %8.1f ms %8d KB%n", now, bytes[1]/1024);
+		int stored = 0;
+		for (int[][] c : controls) stored+=path.build('B', c, 200).length;
+		System.out.printf("  points kept per slider: %d -> %d%n", 200, stored/controls.length);
+	}
+
+	static void bezier() throws IOException {
+		//one bezier segment of each degree: old recursive int sliderCalc2 vs SliderPath (forward differencing up to degree 3)
+		System.out.println("bezier: 20000 points per curve, ns per point, max px off the old curve");
+		Random r = new Random(727);
+		int points = 20000;
+		SliderPath path = new SliderPath();
+		for (int degree = 2; degree<=30; degree+=degree<4 ? 1 : 2) {
+			int num = degree+1;
+			int[][] a = new int[num][2];
+			for (int i = 0; i<num; i++) {
+				a[i][0] = r.nextInt(768);
+				a[i][1] = r.nextInt(576);
+			}
+			path.control = a;
+			int[][] old = new int[points][];
+			double oldTime = Bench.time(() -> {
+				for (int j = 0; j<points; j++) old[j] = oldBezier(a, 0, points, num, j);
+			});
+			double newTime = Bench.time(() -> {
+				path.samples = 0;
+				if (num<=4) path.forwardDifference(0, num, points);
+				else for (int j = 0; j<points; j++) path.bezier(0, num, (double)j/points);
+			});
+			int diff = 0;
+			for (int j = 0; j<points; j++) {
+				path.bezier(0, num, (double)j/points);
+				diff = Math.max(diff, (int) Math.round(Math.max(Math.abs(old[j][0]-path.scratchX[0]), Math.abs(old[j][1]-path.scratchY[0]))));
+			}
+			System.out.printf("  degree %2d  recursive %7.1f  SliderPath %6.1f  %3d px%n", degree, oldTime*1e6/points, newTime*1e6/points, diff);
+		}
+	}
+
+	static void curves() throws IOException {
+		//each slider type built as bezier (how every slider used to be treated) vs with its own math
+		System.out.println("curves: 5000 sliders of each type, ms");
+		Random r = new Random(727);
+		SliderPath path = new SliderPath();
+		char[] types = {'L','P','C'};
+		int[] sizes = {2,3,4}; //usual number of control points for each
+		for (int t = 0; t<types.length; t++) {
+			int[][][] controls = new int[5000][sizes[t]][2];
+			for (int[][] c : controls) {
+				for (int[] a : c) {
+					a[0] = r.nextInt(512);
+					a[1] = r.nextInt(384);
+				}
+			}
+			char type = types[t];
+			double asBezier = Bench.time(() -> {
+				for (int[][] c : controls) path.build('B', c, 200);
+			});
+			double own = Bench.time(() -> {
+				for (int[][] c : controls) path.build(type, c, 200);
+			});
+			System.out.printf("  %c  as bezier %7.1f  own %7.1f%n", type, asBezier, own);
+		}
+	}
+
+	static void workers() throws IOException {
+		//every slider path of a slider heavy map built at once on 1, 2, 4 and 8 threads
+		File map = Bench.stressMap(20000, 0.8);
+		ParsedBeatmap parsed = new OsuParser().parse(map);
+		System.out.println("workers: 20000 objects, 80% sliders ("+Runtime.getRuntime().availableProcessors()+" cores)");
+		for (int workers = 1; workers<=8; workers*=2) {
+			ForkJoinPool pool = new ForkJoinPool(workers);
+			double load = Bench.time(() -> {
+				Bench.clearLists();
+				parsed.stamp();
+				new SliderPathLoader(OsuReader.sliderList, pool, 0).request(0, OsuReader.sliderList.size()).join();
+			});
+			pool.shutdown();
+			System.out.printf("  %d workers     %8.1f ms%n", workers, load);
+		}
+		map.delete();
+	}
+
+	static void lazy() throws IOException {
+		//every path built before play vs paths built just ahead of time and dropped after fade out
+		//play is simulated in 16 ms frames, memory is the number of path points held at once
+		File map = Bench.stressMap(20000, 0.8);
+		ParsedBeatmap parsed = new OsuParser().parse(map);
+		int fadeIn = OsuReader.getARtime(parsed.AR)[0];
+		System.out.println("lazy: 20000 objects, 80% sliders, "+parsed.endTime/60000+" min");
+		ForkJoinPool pool = ForkJoinPool.commonPool();
+
+		Bench.clearLists();
+		parsed.stamp();
+		long start = System.nanoTime();
+		new SliderPathLoader(OsuReader.sliderList, pool, 0).request(0, OsuReader.sliderList.size()).join();
+		double eager = (System.nanoTime()-start)/1e6;
+		long all = 0;
+		for (Slider a : OsuReader.sliderList) all+=a.points.length;
+
+		Bench.clearLists();
+		parsed.stamp();
+		SliderPathLoader loader = new SliderPathLoader(OsuReader.sliderList, pool, OsuReader.PATH_LOOKAHEAD);
+		start = System.nanoTime();
+		loader.update(0, fadeIn);
+		pool.awaitQuiescence(1, TimeUnit.MINUTES);
+		double first = (System.nanoTime()-start)/1e6;
+		long peak = 0;
+		int released = 0; //sliders before this one have faded out
+		Slider[] sliders = OsuReader.sliderList.toArray(new Slider[0]);
+		for (int t = 0; t<=parsed.endTime+650; t+=16) {
+			loader.update(t, fadeIn);
+			pool.awaitQuiescence(1, TimeUnit.MINUTES);
+			while (released<sliders.length && sliders[released].time+sliders[released].duration*sliders[released].slides+650<=t) {
+				sliders[released].points = null;
+				released++;
+			}
+			long held = 0;
+			for (int i = released; i<loader.next; i++) {
+				if (sliders[i].points != null) held+=sliders[i].points.length;
+			}
+			peak = Math.max(peak, held);
+		}
+		System.out.printf("  all before play  %8.1f ms before the first note, %8d points held%n", eager, all);
+		System.out.printf("  look-ahead       %8.1f ms before the first note, %8d points held at most%n", first, peak);
+		map.delete();
+	}
+
+	static int[][] oldSliderCalc(int[][] controlPoints, int b) {
+		//the old OsuReader.sliderPoints/sliderCalc, kept here as the baseline
+		int[][] a = new int[controlPoints.length][2];
+		for (int i = 0; i<controlPoints.length; i++) {
+			a[i][0] = controlPoints[i][0]*3/2;
+			a[i][1] = controlPoints[i][1]*3/2;
+		}
+		int[][][] sliders = new int[1000][a.length][2];
+		for (int i = 0; i<sliders.length; i++) {
+			for (int j = 0; j<sliders[i].length; j++) {
+				for (int k = 0; k<sliders[i][j].length; k++) {
+					sliders[i][j][k] = -6969;
+				}
+			}
+		}
+		int sliderNum = 0;
+		int sliderLoc = 0;
+		for (int i = 0; i<a.length-1; i++) {
+			sliders[sliderNum][sliderLoc] = a[i];
+			sliderLoc++;
+			if (a[i][0] == a[i+1][0] && a[i][1] == a[i+1][1]) {
+				sliderNum++;
+				sliderLoc = 0;
+			}
+		}
+		sliders[sliderNum][sliderLoc] = a[a.length-1];
+		double[] distance = new double[sliderNum+1];
+		double totalDistance = 0;
+		for (int i = 0; i<=sliderNum; i++) {
+			int[] p1 = sliders[i][0];
+			int[] p2 = {0,0};
+			for (int j = 0; j<sliders[i].length; j++) {
+				if (sliders[i][j][0] == -6969) break;
+				p2 = sliders[i][j];
+			}
+			distance[i] = (Math.sqrt(Math.pow((p2[0]-p1[0]),2)+Math.pow((p2[1]-p1[1]),2)));
+			totalDistance+=distance[i];
+		}
+		int[][] points = new int[b][2];
+		int k = 0;
+		for (int i = 0; i<=sliderNum; i++) {
+			int numPoints = (int)(distance[i]*b/totalDistance);
+			int bezierNum = 0;
+			for (int j = 0; j<a.length; j++) {
+				if (sliders[i][j][0] !=-6969) bezierNum++;
+			}
+			for (int j = 0 ; j < numPoints; j++) {
+				points[k] = oldBezier(sliders[i], 0, numPoints, bezierNum, j);
+				k++;
+			}
+		}
+		return points;
+	}
+
+	static int[] oldBezier(int[][]a, int start, int points, int num, int cPoint) {
+		//the old OsuReader.sliderCalc2, kept here as the baseline
+		int[][] b = new int[num][2];
+		double c = (double)cPoint/points; //which point in section (ratio of where it should be drawn)
+		int[][] d = new int[num-1][2];
+
+		for (int i = 0; i<b.length; i++) {
+			b[i] = a[start+i];
+		}
+
+		//bezier calculation
+		for (int i = 0; i<d.length; i++) {
+			d[i][0] = b[i][0] + (int)((b[i+1][0]-b[i][0])*c);
+			d[i][1] = b[i][1] + (int)((b[i+1][1]-b[i][1])*c);
+		}
+		if (num > 2) {
+			return oldBezier(d, 0, points, num-1, cPoint); //recursive until bezier degree is 0 (real points)
+		}
+
+		return d[0];
+	}
+}
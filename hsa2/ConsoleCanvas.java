@@ -2,15 +2,22 @@ package hsa2;
 
 import java.awt.AlphaComposite;
 import java.awt.BasicStroke;
+import java.awt.Canvas;
 import java.awt.Color;
 import java.awt.Dimension;
 import java.awt.Font;
 import java.awt.FontMetrics;
 import java.awt.Graphics;
 import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.GraphicsEnvironment;
+import java.awt.GridLayout;
 import java.awt.Image;
+import java.awt.LayoutManager;
 import java.awt.Polygon;
 import java.awt.RenderingHints;
+import java.awt.Toolkit;
+import java.awt.Transparency;
 import java.awt.datatransfer.DataFlavor;
 import java.awt.datatransfer.Transferable;
 import java.awt.image.ImageObserver;
@@ -18,10 +25,16 @@ import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.awt.event.KeyEvent;
 import java.awt.event.KeyListener;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.awt.event.MouseWheelEvent;
+import java.awt.image.BufferStrategy;
 import java.awt.image.BufferedImage;
+import java.util.concurrent.atomic.AtomicInteger;
 //import java.awt.image.ImageObserver;
 
 import javax.swing.JPanel;
+import javax.swing.SwingUtilities;
 import javax.swing.Timer;
 
 /**
@@ -78,6 +91,33 @@ public class ConsoleCanvas extends JPanel implements ActionListener, KeyListener
 	/* MH added */
 	private int strokeSize = 1;
 	private boolean antiAlias = false;
+	/** Graphics kept for the off screen buffer, and the state last set on it **/
+	private Graphics2D offscreen;
+	private Color gColor, gXorColor;
+	private BasicStroke gStroke, roundStroke, squareStroke;
+	private AlphaComposite gComposite;
+	private boolean gXor, gAntiAlias;
+	/** Swap chain buffers (see publishFrame) **/
+	private final BufferedImage[] frames = new BufferedImage [3];
+	private final AtomicInteger ready = new AtomicInteger();
+	private static final int FRESH = 4;
+	private volatile boolean swapChain = false;
+	private int back, published, shown;
+	private boolean dirty, stale;
+	/** Active rendering (see startActiveRendering) **/
+	private Canvas screen;
+	private BufferStrategy strategy;
+	private long frameNanos, nextFrame; // target time between frames (0 for no limit), when the next one is due
+	private long lastPresent, statStart, statSum, statMax;
+	private int statCount;
+	private volatile double presentAverage, presentMax; // ms between frames shown, over the last full second
+	/** SRC_OVER composites for each alpha step, made once **/
+	private static final BasicStroke THIN = new BasicStroke();
+	private static final AlphaComposite[] ALPHAS = new AlphaComposite [256];
+	static {
+		for (int i = 0; i < ALPHAS.length; i++)
+			ALPHAS[i] = AlphaComposite.getInstance(AlphaComposite.SRC_OVER, i/255f);
+	}
 
 	// ***** Text input/output variables *****
 	private Font textFont;
@@ -134,7 +174,7 @@ public class ConsoleCanvas extends JPanel implements ActionListener, KeyListener
 		this.setPreferredSize(new Dimension(width, height));
 		this.setMinimumSize(new Dimension(width, height));
 		this.setMaximumSize(new Dimension(width, height));
-		buffer = new BufferedImage(width, height, BufferedImage.TYPE_4BYTE_ABGR);
+		buffer = createBuffer(width, height);
 		this.height = height;
 		this.width = width;
 		
@@ -163,28 +203,23 @@ public class ConsoleCanvas extends JPanel implements ActionListener, KeyListener
 	// ************
 	void clear()
 	{
-		Graphics g = getOffscreenGraphics();
-		g.setColor(backgroundColor);
-		if(xorMode)
-			g.setPaintMode();
+		stale = false; //everything gets cleared, no need to bring back the last frame
+		Graphics2D g = getOffscreenGraphics();
+		useComposite(AlphaComposite.SrcOver); //clearing ignores xor mode
+		useColor(backgroundColor);
 		g.fillRect(0, 0, width, height);
 		setCursor(0,0);
-		if(xorMode)
-			g.setXORMode(xorColor);
 	}
 	void clearRect(int x, int y, int width, int height)
 	{
-		Graphics g = getOffscreenGraphics();
-		g.setColor(backgroundColor);
-		if(xorMode)
-			g.setPaintMode();
+		Graphics2D g = getOffscreenGraphics();
+		useComposite(AlphaComposite.SrcOver);
+		useColor(backgroundColor);
 		g.fillRect(x, y, width, height);
-		if(xorMode)
-			g.setXORMode(xorColor);
 	}
 	void copyArea(int x, int y, int width, int height, int dx, int dy)
 	{
-		Graphics g = getOffscreenGraphics();
+		Graphics2D g = getOffscreenGraphics();
 		g.copyArea(x, y, width, height, dx, dy);
 	}
 	void setColor(Color c)
@@ -206,40 +241,28 @@ public class ConsoleCanvas extends JPanel implements ActionListener, KeyListener
 	}
 	void fillRect(int x, int y, int width, int height)
 	{
-		Graphics g = getOffscreenGraphics();
-		g.setColor(foregroundColor);
+		Graphics2D g = getOffscreenGraphics();
+		useColor(foregroundColor);
 		g.fillRect(x, y, width, height);
 	}
 	void drawRect(int x, int y, int width, int height)
 	{
-		Graphics g = getOffscreenGraphics();		
-		Graphics2D g2 = (Graphics2D) g;
-		g.setColor(foregroundColor);
-		if (antiAlias) {
-			g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
-		}
-		g2.setStroke(new BasicStroke (strokeSize,BasicStroke.CAP_ROUND, BasicStroke.JOIN_ROUND));
+		Graphics2D g2 = getOffscreenGraphics(true);
+		useColor(foregroundColor);
+		useStroke(BasicStroke.CAP_ROUND);
 		g2.drawRect(x, y, width, height);
 	}	
 	void fillOval(int x, int y, int width, int height)
 	{
-		Graphics g = getOffscreenGraphics();		
-		Graphics2D g2 = (Graphics2D) g;
-		if (antiAlias) {
-			g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
-		}
-		g.setColor(foregroundColor);
+		Graphics2D g2 = getOffscreenGraphics(true);
+		useColor(foregroundColor);
 		g2.fillOval(x, y, width, height);
 	}
 	void drawOval(int x, int y, int width, int height)
 	{
-		Graphics g = getOffscreenGraphics();		
-		Graphics2D g2 = (Graphics2D) g;
-		if (antiAlias) {
-			g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
-		}
-		g.setColor(foregroundColor);
-		g2.setStroke(new BasicStroke (strokeSize,BasicStroke.CAP_ROUND, BasicStroke.JOIN_ROUND));
+		Graphics2D g2 = getOffscreenGraphics(true);
+		useColor(foregroundColor);
+		useStroke(BasicStroke.CAP_ROUND);
 		g2.drawOval(x, y, width, height);
 	}
 /* ORIGINAL
@@ -252,113 +275,76 @@ public class ConsoleCanvas extends JPanel implements ActionListener, KeyListener
 */
 	void drawLine(int x1, int y1, int x2, int y2)
 	{
-		Graphics g = getOffscreenGraphics();
-		Graphics2D g2 = (Graphics2D) g;
-		if (antiAlias) {
-			g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
-		}
-		g.setColor(foregroundColor);
-		g2.setStroke(new BasicStroke (strokeSize,BasicStroke.CAP_ROUND, BasicStroke.JOIN_ROUND));
+		Graphics2D g2 = getOffscreenGraphics(true);
+		useColor(foregroundColor);
+		useStroke(BasicStroke.CAP_ROUND);
 		g2.drawLine(x1, y1, x2, y2);
 	}
 	void drawPolygon(Polygon p){
-		Graphics g = getOffscreenGraphics();
-		Graphics2D g2 = (Graphics2D) g;
-		if (antiAlias) {
-			g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
-		}
-		g.setColor(foregroundColor);
-		g2.setStroke(new BasicStroke (strokeSize,BasicStroke.CAP_SQUARE, BasicStroke.JOIN_ROUND));
+		Graphics2D g2 = getOffscreenGraphics(true);
+		useColor(foregroundColor);
+		useStroke(BasicStroke.CAP_SQUARE);
 		g2.drawPolygon(p);
 	}
 	void drawPolygon(int[] x, int[] y, int n)
 	{
-		Graphics g = getOffscreenGraphics();
-		Graphics2D g2 = (Graphics2D) g;
-		if (antiAlias) {
-			g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
-		}
-		g.setColor(foregroundColor);
-		g2.setStroke(new BasicStroke (strokeSize,BasicStroke.CAP_ROUND, BasicStroke.JOIN_ROUND));
+		Graphics2D g2 = getOffscreenGraphics(true);
+		useColor(foregroundColor);
+		useStroke(BasicStroke.CAP_ROUND);
 		g2.drawPolygon(x, y, n);
 	}
 	void fillPolygon(Polygon p)
 	{
-		Graphics g = getOffscreenGraphics();
-		Graphics2D g2 = (Graphics2D) g;
-		if (antiAlias) {
-			g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
-		}
-		g.setColor(foregroundColor);
+		Graphics2D g2 = getOffscreenGraphics(true);
+		useColor(foregroundColor);
 		g2.fillPolygon(p);
 	}
 	void fillPolygon(int[] x, int[] y, int n)
 	{
-		Graphics g = getOffscreenGraphics();
-		Graphics2D g2 = (Graphics2D) g;
-		if (antiAlias) {
-			g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
-		}
-		g.setColor(foregroundColor);
+		Graphics2D g2 = getOffscreenGraphics(true);
+		useColor(foregroundColor);
 		g2.fillPolygon(x, y, n);
 	}
 	void drawArc(int x, int y, int width, int height, int startAngle, int arcAngle) {
-		Graphics g = getOffscreenGraphics();
-		Graphics2D g2 = (Graphics2D) g;
-		if (antiAlias) {
-			g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
-		}
-		g.setColor(foregroundColor);
-		g2.setStroke(new BasicStroke (strokeSize,BasicStroke.CAP_ROUND, BasicStroke.JOIN_ROUND));
+		Graphics2D g2 = getOffscreenGraphics(true);
+		useColor(foregroundColor);
+		useStroke(BasicStroke.CAP_ROUND);
 		g2.drawArc(x, y, width, height, startAngle, arcAngle);
 	}
 	void fillArc(int x, int y, int width, int height, int startAngle, int arcAngle) {
-		Graphics g = getOffscreenGraphics();
-		Graphics2D g2 = (Graphics2D) g;
-		if (antiAlias) {
-			g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
-		}
-		g.setColor(foregroundColor);
+		Graphics2D g2 = getOffscreenGraphics(true);
+		useColor(foregroundColor);
 		g2.fillArc(x, y, width, height, startAngle, arcAngle);
 	}
 	void drawRoundRect(int x, int y, int width, int height, int xRadius, int yRadius)	{
-		Graphics g = getOffscreenGraphics();
-		Graphics2D g2 = (Graphics2D) g;
-		if (antiAlias) {
-			g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
-		}
-		g.setColor(foregroundColor);
-		g2.setStroke(new BasicStroke (strokeSize,BasicStroke.CAP_ROUND, BasicStroke.JOIN_ROUND));
+		Graphics2D g2 = getOffscreenGraphics(true);
+		useColor(foregroundColor);
+		useStroke(BasicStroke.CAP_ROUND);
 		g2.drawRoundRect(x, y, width, height, xRadius, yRadius);
 	}
 	void fillRoundRect(int x, int y, int width, int height, int xRadius, int yRadius) {
-		Graphics g = getOffscreenGraphics();
-		Graphics2D g2 = (Graphics2D) g;
-		if (antiAlias) {
-			g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
-		}
-		g.setColor(foregroundColor);		
+		Graphics2D g2 = getOffscreenGraphics(true);
+		useColor(foregroundColor);
 		g2.fillRoundRect(x, y, width, height, xRadius, yRadius);
 	}
 	void draw3DRect(int x, int y, int width, int height, boolean raised)
 	{
-		Graphics g = getOffscreenGraphics();
-		g.setColor(foregroundColor);
+		Graphics2D g = getOffscreenGraphics();
+		useColor(foregroundColor);
+		useStroke(-1); //thin lines like a new graphics
 		g.draw3DRect(x, y, width, height, raised);
+		gColor = null; //draw3DRect changes the color itself
 	}
 	void fill3DRect(int x, int y, int width, int height, boolean raised) {
-		Graphics g = getOffscreenGraphics();
-		g.setColor(foregroundColor);
+		Graphics2D g = getOffscreenGraphics();
+		useColor(foregroundColor);
 		g.fill3DRect(x, y, width, height, raised);
+		gColor = null;
 	}
 	//MH. Prevent calls to g2.setFont() if the font has not changed.
 	void drawString(String str, int x, int y) {
-		Graphics g = getOffscreenGraphics();
-		Graphics2D g2 = (Graphics2D) g;
-		if (antiAlias) {
-			g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
-		}
-		g.setColor(foregroundColor);
+		Graphics2D g2 = getOffscreenGraphics(true);
+		useColor(foregroundColor);
 		if ( drawStringFont != null && !(drawStringFont.equals(g2.getFont())) )
 			g2.setFont(drawStringFont);
 		g2.drawString(str, x, y);
@@ -385,14 +371,24 @@ public class ConsoleCanvas extends JPanel implements ActionListener, KeyListener
 		this.setPreferredSize(new Dimension(width, height));
 		this.setMinimumSize(new Dimension(width, height));
 		this.setMaximumSize(new Dimension(width, height));
-		buffer = new BufferedImage(width, height, BufferedImage.TYPE_4BYTE_ABGR);
+		synchronized(container) {
+			if (swapChain) {
+				for (int i = 0; i < frames.length; i++)
+					frames[i] = createBuffer(width, height);
+				buffer = frames[back];
+				stale = false;
+			}
+			else
+				buffer = createBuffer(width, height);
+			disposeOffscreenGraphics(); //the old graphics draws on the old buffer
+		}
 		this.height = height;
 		this.width = width;
 	}
 	
 	void drawImage(Image img, int x, int y) {
 		boolean success = false;
-		Graphics g = getOffscreenGraphics();
+		Graphics2D g = getOffscreenGraphics();
 		success = g.drawImage (img, x, y, null); 
 		// loop to timeout if image not drawn properly
 		for (int i = 0 ; i < 1000 & !success ; i++) {
@@ -410,7 +406,7 @@ public class ConsoleCanvas extends JPanel implements ActionListener, KeyListener
 	}
 	void drawImage(Image img, int x, int y, int width, int height) {
 		boolean success = false;
-			Graphics g = getOffscreenGraphics();
+			Graphics2D g = getOffscreenGraphics();
 			success = g.drawImage (img, x, y, width, height, null);
 			// loop to timeout if image not drawn properly
 			for (int i = 0 ; i < 1000 & !success ; i++)
@@ -431,7 +427,7 @@ public class ConsoleCanvas extends JPanel implements ActionListener, KeyListener
 			int sx1,int sy1,int sx2,int sy2,ImageObserver observer) {
 
 		boolean success = false;
-		Graphics g = getOffscreenGraphics();
+		Graphics2D g = getOffscreenGraphics();
 		success = g.drawImage (img, dx1, dy1, dx2, dy2, sx1, sy1, sx2, sy2, observer);
 		// loop to timeout if image not drawn properly
 		for (int i = 0 ; i < 1000 & !success ; i++)
@@ -448,10 +444,8 @@ public class ConsoleCanvas extends JPanel implements ActionListener, KeyListener
 	// Mayuwhim, June 2022, basically all the drawImage functions but with adjustable transparency (alpha)
 	void drawImage(Image img, int x, int y, float alpha) {
 		boolean success = false;
-		Graphics g = getOffscreenGraphics();
-		Graphics2D g2 = (Graphics2D) g;
-		AlphaComposite ac = AlphaComposite.getInstance(AlphaComposite.SRC_OVER,alpha);
-		g2.setComposite(ac);
+		Graphics2D g2 = getOffscreenGraphics();
+		useComposite(alphaComposite(alpha));
 		success = g2.drawImage (img, x, y, null); 
 		// loop to timeout if image not drawn properly
 		for (int i = 0 ; i < 1000 & !success ; i++) {
@@ -470,10 +464,8 @@ public class ConsoleCanvas extends JPanel implements ActionListener, KeyListener
 	
 	void drawImage(Image img, int x, int y, int width, int height, float alpha) {
 		boolean success = false;
-			Graphics g = getOffscreenGraphics();
-			Graphics2D g2 = (Graphics2D) g;
-			AlphaComposite ac = AlphaComposite.getInstance(AlphaComposite.SRC_OVER,alpha);
-			g2.setComposite(ac);
+			Graphics2D g2 = getOffscreenGraphics();
+			useComposite(alphaComposite(alpha));
 			success = g2.drawImage (img, x, y, width, height, null);
 			// loop to timeout if image not drawn properly
 			for (int i = 0 ; i < 1000 & !success ; i++)
@@ -492,10 +484,8 @@ public class ConsoleCanvas extends JPanel implements ActionListener, KeyListener
 			int sx1,int sy1,int sx2,int sy2, float alpha, ImageObserver observer) {
 
 		boolean success = false;
-		Graphics g = getOffscreenGraphics();
-		Graphics2D g2 = (Graphics2D) g;
-		AlphaComposite ac = AlphaComposite.getInstance(AlphaComposite.SRC_OVER,alpha);
-		g2.setComposite(ac);
+		Graphics2D g2 = getOffscreenGraphics();
+		useComposite(alphaComposite(alpha));
 		success = g2.drawImage (img, dx1, dy1, dx2, dy2, sx1, sy1, sx2, sy2, observer);
 		// loop to timeout if image not drawn properly
 		for (int i = 0 ; i < 1000 & !success ; i++)
@@ -724,6 +714,15 @@ public class ConsoleCanvas extends JPanel implements ActionListener, KeyListener
 		return ch;
 	}
 
+	/**
+	 * Checks for a character in the keyboard buffer without waiting for one.
+	 * @return True if getChar would return right away.
+	 */
+	public synchronized boolean hasChar ()
+	{
+		return kbdBufferHead != kbdBufferTail;
+	}
+
 	/**
 	 * Reads a single character from the Console. Note that this discards any
 	 * whitespace. If you want to get every character on the line, use the
@@ -1021,14 +1020,15 @@ public class ConsoleCanvas extends JPanel implements ActionListener, KeyListener
 	}
 	private void toggleVisibleCursor()
 	{
-			if (xorMode)
-				drawRect(actualCol*fontWidth+MARGIN, actualRow*fontHeight+MARGIN, fontWidth, fontHeight);
-			else
-			{
-				setXORMode(backgroundColor);
-				drawRect(actualCol*fontWidth+MARGIN, actualRow*fontHeight+MARGIN, fontWidth, fontHeight);
-				setPaintMode();
-			}
+			// Mayuwhim. Own graphics, this runs on the timer's thread and the kept one belongs to the program's
+			Graphics2D g = buffer.createGraphics();
+			g.setColor(foregroundColor);
+			g.setXORMode(xorMode ? xorColor : backgroundColor);
+			if (antiAlias)
+				g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+			g.setStroke(new BasicStroke (strokeSize,BasicStroke.CAP_ROUND, BasicStroke.JOIN_ROUND));
+			g.drawRect(actualCol*fontWidth+MARGIN, actualRow*fontHeight+MARGIN, fontWidth, fontHeight);
+			g.dispose();
 			if (cursorVisible)
 				cursorVisible = false;
 			else
@@ -1046,6 +1046,7 @@ public class ConsoleCanvas extends JPanel implements ActionListener, KeyListener
 	{
 		int x = (col) * fontWidth;
 		int y = (row) * fontHeight;
+			touchBuffer();
 			Graphics g = buffer.getGraphics ();
 
 			// Erase the area that the image will appear on.
@@ -1068,6 +1069,7 @@ public class ConsoleCanvas extends JPanel implements ActionListener, KeyListener
 		int x = (col) * fontWidth;
 		int y = (row) * fontHeight;
 		int len = width - x;
+			touchBuffer();
 			Graphics g = buffer.getGraphics ();
 
 			// First clear the rectangle on the offscreen image.
@@ -1082,6 +1084,7 @@ public class ConsoleCanvas extends JPanel implements ActionListener, KeyListener
 	{
 		synchronized(container)
 		{
+			touchBuffer();
 			Graphics g = buffer.getGraphics ();
 			// Scroll the screen up
 			g.copyArea (0, fontHeight, width, height - fontHeight, 0, -fontHeight);
@@ -1092,6 +1095,14 @@ public class ConsoleCanvas extends JPanel implements ActionListener, KeyListener
 	}
 	public void paintComponent(Graphics g)
 	{	  
+		if (swapChain)
+		{
+			// Mayuwhim. Take the newest published frame if there is one, no lock needed
+			if ((ready.get() & FRESH) != 0)
+				shown = ready.getAndSet(shown) & ~FRESH;
+			g.drawImage(frames[shown], 0, 0, width, height, this);
+			return;
+		}
 		synchronized(container)
 		{
 			g.drawImage(buffer, 0, 0, width, height, this);
@@ -1110,16 +1121,243 @@ public class ConsoleCanvas extends JPanel implements ActionListener, KeyListener
 				}
 			}
 		}
-		repaint();
+		if (screen == null)
+			repaint(); // active rendering shows frames itself
+	}
+	/* Mayuwhim. The buffer is opaque and in the screen's own pixel format, so drawing it to the window and drawing
+	 * loaded images onto it doesn't go through generic conversion loops (TYPE_4BYTE_ABGR did). */
+	private static BufferedImage createBuffer(int width, int height)
+	{
+		if (GraphicsEnvironment.isHeadless())
+			return new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+		GraphicsConfiguration gc = GraphicsEnvironment.getLocalGraphicsEnvironment().getDefaultScreenDevice().getDefaultConfiguration();
+		return gc.createCompatibleImage(width, height, Transparency.OPAQUE);
+	}
+	/* Mayuwhim. One Graphics2D is kept for the buffer instead of a new one per call (they were never disposed),
+	 * and color, stroke, composite, antialiasing and xor mode are only set on it when they change.
+	 * getOffscreenGraphics(true) is for shapes and text (antialiased if antiAlias is on), false for everything else. */
+	private Graphics2D getOffscreenGraphics()
+	{
+		return getOffscreenGraphics(false);
 	}
-	private Graphics getOffscreenGraphics()
+	private Graphics2D getOffscreenGraphics(boolean smooth)
 	{
-		Graphics g = buffer.getGraphics();
-		if (xorMode)
-			g.setXORMode(xorColor);
+		touchBuffer();
+		if (offscreen == null) {
+			offscreen = buffer.createGraphics();
+			gColor = null;
+			gStroke = null;
+			gComposite = null;
+			gXor = false;
+			gAntiAlias = false;
+		}
+		if (xorMode) {
+			if (!gXor || !xorColor.equals(gXorColor)) {
+				offscreen.setXORMode(xorColor);
+				gXor = true;
+				gXorColor = xorColor;
+				gComposite = null;
+			}
+		}
 		else
-			g.setPaintMode();
-		return g;
+			useComposite(AlphaComposite.SrcOver);
+		boolean aa = smooth && antiAlias;
+		if (aa != gAntiAlias) {
+			offscreen.setRenderingHint(RenderingHints.KEY_ANTIALIASING, aa ? RenderingHints.VALUE_ANTIALIAS_ON : RenderingHints.VALUE_ANTIALIAS_OFF);
+			gAntiAlias = aa;
+		}
+		return offscreen;
+	}
+	/* Mayuwhim. Swap chain: the program draws on frames[back] and publishFrame() hands it over to be shown, while
+	 * paintComponent shows frames[shown]. The newest finished frame waits in between, its index is in ready
+	 * (plus FRESH until paintComponent takes it). Each buffer belongs to one thread at a time, so painting never
+	 * waits for the program's lock and never shows a half drawn frame. It starts with the first publishFrame(),
+	 * before that the buffer is shown as it is being drawn like always. */
+	void publishFrame()
+	{
+		if (!swapChain) {
+			frames[0] = buffer;
+			frames[1] = createBuffer(width, height);
+			frames[2] = createBuffer(width, height);
+			back = 0;
+			shown = 2;
+			ready.set(1);
+			swapChain = true;
+		}
+		else if (!dirty)
+			return; //nothing drawn since the last frame
+		dirty = false;
+		published = back;
+		back = ready.getAndSet(back | FRESH) & ~FRESH;
+		buffer = frames[back];
+		disposeOffscreenGraphics();
+		stale = true;
+		if (strategy != null)
+			present();
+	}
+	/* Mayuwhim. Active rendering: frames are put on screen by the program's own thread as soon as publishFrame()
+	 * is called, through a page flipped BufferStrategy on an AWT Canvas over this panel, instead of whenever the
+	 * Swing timer gets to repaint. Must be called on the event thread once the window is showing. */
+	boolean startActiveRendering(int fps)
+	{
+		setTargetFPS(fps);
+		if (screen != null)
+			return true;
+		Canvas c = new Canvas();
+		c.setIgnoreRepaint(true);
+		c.setFocusable(false); // keys still go to the window
+		// mouse events land on the canvas now, pass them on to this panel's listeners
+		MouseAdapter forward = new MouseAdapter() {
+			public void mouseClicked(MouseEvent e) { forwardMouse(e); }
+			public void mousePressed(MouseEvent e) { forwardMouse(e); }
+			public void mouseReleased(MouseEvent e) { forwardMouse(e); }
+			public void mouseEntered(MouseEvent e) { forwardMouse(e); }
+			public void mouseExited(MouseEvent e) { forwardMouse(e); }
+			public void mouseDragged(MouseEvent e) { forwardMouse(e); }
+			public void mouseMoved(MouseEvent e) { forwardMouse(e); }
+			public void mouseWheelMoved(MouseWheelEvent e) { forwardMouse(e); }
+		};
+		c.addMouseListener(forward);
+		c.addMouseMotionListener(forward);
+		c.addMouseWheelListener(forward);
+		LayoutManager oldLayout = getLayout();
+		setLayout(new GridLayout(1,1));
+		add(c);
+		validate();
+		// only switch over once there is a strategy, otherwise take the canvas away again and keep the timer
+		BufferStrategy bs = null;
+		try {
+			c.createBufferStrategy(2);
+			bs = c.getBufferStrategy();
+		} catch (RuntimeException e) {
+			System.out.println(e.toString());
+		}
+		if (bs == null) {
+			remove(c);
+			setLayout(oldLayout);
+			validate();
+			return false;
+		}
+		strategy = bs;
+		screen = c;
+		return true;
+	}
+	private void forwardMouse(MouseEvent e)
+	{
+		dispatchEvent(SwingUtilities.convertMouseEvent(e.getComponent(), e, this));
+	}
+	void setTargetFPS(int fps)
+	{
+		frameNanos = fps > 0 ? 1000000000L / fps : 0;
+	}
+	double getPresentAverage()
+	{
+		return presentAverage;
+	}
+	double getPresentMax()
+	{
+		return presentMax;
+	}
+	/* Shows frames[published]: waits for the frame's turn if there is a target fps, then flips. */
+	private void present()
+	{
+		long now = System.nanoTime();
+		if (frameNanos > 0) {
+			nextFrame += frameNanos;
+			if (nextFrame < now - frameNanos)
+				nextFrame = now; // fell behind, start over instead of rushing frames out to catch up
+			long wait = nextFrame - now;
+			if (wait > 0) {
+				try {
+					Thread.sleep(wait / 1000000, (int)(wait % 1000000));
+				} catch (InterruptedException e) {}
+			}
+		}
+		BufferedImage frame = frames[published];
+		do {
+			do {
+				Graphics g = strategy.getDrawGraphics();
+				g.drawImage(frame, 0, 0, width, height, null);
+				g.dispose();
+			} while (strategy.contentsRestored());
+			strategy.show();
+		} while (strategy.contentsLost());
+		Toolkit.getDefaultToolkit().sync();
+
+		// time between frames shown, averaged every second
+		now = System.nanoTime();
+		if (lastPresent != 0) {
+			long d = now - lastPresent;
+			statSum += d;
+			statMax = Math.max(statMax, d);
+			statCount++;
+		}
+		lastPresent = now;
+		if (now - statStart >= 1000000000L) {
+			presentAverage = statCount > 0 ? statSum / 1e6 / statCount : 0;
+			presentMax = statMax / 1e6;
+			statSum = statMax = statCount = 0;
+			statStart = now;
+		}
+	}
+	/* The buffer handed back by a swap holds an older frame, drawing on it starts from a copy of the last
+	 * published one unless it is cleared first (so drawing over the last frame still works). */
+	private void touchBuffer()
+	{
+		dirty = true;
+		if (stale) {
+			stale = false;
+			Graphics g = buffer.getGraphics();
+			g.drawImage(frames[published], 0, 0, null);
+			g.dispose();
+		}
+	}
+	private void disposeOffscreenGraphics()
+	{
+		if (offscreen != null)
+			offscreen.dispose();
+		offscreen = null;
+	}
+	private void useColor(Color c)
+	{
+		if (c != gColor && (c == null || !c.equals(gColor))) {
+			offscreen.setColor(c);
+			gColor = c;
+		}
+	}
+	private void useStroke(int cap)
+	{
+		//one stroke is kept per cap, remade only when setStroke changes the size
+		//cap -1 is the default 1 pixel stroke
+		BasicStroke s = cap < 0 ? THIN : cap == BasicStroke.CAP_SQUARE ? squareStroke : roundStroke;
+		if (s == null || (cap >= 0 && s.getLineWidth() != strokeSize)) {
+			s = new BasicStroke (strokeSize, cap, BasicStroke.JOIN_ROUND);
+			if (cap == BasicStroke.CAP_SQUARE)
+				squareStroke = s;
+			else
+				roundStroke = s;
+		}
+		if (s != gStroke) {
+			offscreen.setStroke(s);
+			gStroke = s;
+		}
+	}
+	private void useComposite(AlphaComposite ac)
+	{
+		//also leaves xor mode (setComposite replaces the xor composite)
+		if (gXor || ac != gComposite) {
+			offscreen.setComposite(ac);
+			gComposite = ac;
+			gXor = false;
+		}
+	}
+	private static AlphaComposite alphaComposite(float alpha)
+	{
+		//alpha rounded to one of 256 steps, the same steps the pixels end up in
+		int i = Math.round(alpha*255);
+		if (alpha < 0 || alpha > 1)
+			return AlphaComposite.getInstance(AlphaComposite.SRC_OVER, alpha); //throws like before
+		return ALPHAS[i];
 	}
 	private synchronized void invertScreen() {
 		//TODO - fill this in, maybe
@@ -46,7 +46,7 @@ import javax.swing.JPanel;
  * @author Sam Scott
  * @author Josh Gray (mouse code) 
  * @author Michael Harwood (setStroke, antiAlias, updated dialogs to JOptionPane, drawimage can do sprites)
- * @author Mayuwhim (drawImage transparency)
+ * @author Mayuwhim (drawImage transparency, publishFrame, active rendering)
  * @version 4.5
  */
 public class GraphicsConsole extends JFrame implements MouseListener, MouseMotionListener, MouseWheelListener, ComponentListener {
@@ -244,6 +244,53 @@ public class GraphicsConsole extends JFrame implements MouseListener, MouseMotio
 	public void clear() {
 		canvas.clear();
 	}
+	/**
+	 * Shows everything drawn since the last call as one finished frame.
+	 * Once this has been called the window only shows finished frames, and drawing for the next one
+	 * starts from a copy of this one (or from nothing if it starts with clear()).
+	 */
+	public void publishFrame() {
+		canvas.publishFrame();
+	}
+	/**
+	 * Active rendering: each frame is put on screen by publishFrame() itself, right when it is finished,
+	 * instead of by a timer about 60 times a second. publishFrame() also waits so frames are no closer
+	 * together than the target frame rate.
+	 * @param targetFPS Most frames per second to show, 0 for no limit
+	 * @return false if it couldn't be started (frames are then still shown by the timer)
+	 */
+	public boolean enableActiveRendering(int targetFPS) {
+		boolean[] started = new boolean[1];
+		try {
+			javax.swing.SwingUtilities.invokeAndWait(new Runnable() {
+				public void run() {
+					started[0] = canvas.startActiveRendering(targetFPS);
+				}
+			});
+		} catch (Exception e) {
+			e.printStackTrace();
+		}
+		return started[0];
+	}
+	/**
+	 * Changes the target frame rate for active rendering
+	 * @param targetFPS Most frames per second to show, 0 for no limit
+	 */
+	public void setTargetFPS(int targetFPS) {
+		canvas.setTargetFPS(targetFPS);
+	}
+	/**
+	 * @return Average time between frames shown over the last second in ms (active rendering only)
+	 */
+	public double getFrameTime() {
+		return canvas.getPresentAverage();
+	}
+	/**
+	 * @return Longest time between frames shown over the last second in ms (active rendering only)
+	 */
+	public double getFrameTimeMax() {
+		return canvas.getPresentMax();
+	}
 	/**
 	 * Clears a rectangle on the screen
 	 * @param x Top left corner x coordinate
@@ -1451,6 +1498,13 @@ public class GraphicsConsole extends JFrame implements MouseListener, MouseMotio
 	public char getChar() {
 		return canvas.getChar(false);
 	}
+	/** checks whether a character has been typed, without waiting for one.
+	 * 
+	 * @return true if getChar would return right away.
+	 */
+	public boolean hasChar() {
+		return canvas.hasChar();
+	}
 	/**
 	 * Reads a boolean from the GraphicsConsole.
 	 * The actual text in the GraphicsConsole must be either "true" or "false"
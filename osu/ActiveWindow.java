@@ -0,0 +1,37 @@
+/* osu! active note window
+ * Notes of one kind in time order, and the part of them that is live right now
+ * The appear cursor moves forward as notes come within fade in time, the expire cursor moves past notes that have been
+ * removed, and drawing, judging and hit testing only go over the notes between the two
+ * So a frame costs the same no matter how much of the map is left
+ */
+
+package osu;
+
+import java.util.List;
+
+class ActiveWindow<T extends HitObject> {
+	T[] notes; //time order, never changes
+	int head = 0; //expire cursor, every note before it has been removed
+	int tail = 0; //appear cursor, notes from here on haven't appeared yet
+
+	ActiveWindow(List<? extends T> list, T[] array) {
+		notes = list.toArray(array);
+	}
+
+	void update(long appear) {
+		//notes up to map time appear are live
+		while (tail<notes.length && notes[tail].time<=appear) tail++;
+		expire();
+	}
+
+	void expire() {
+		//removed notes stay in the window until every note before them is gone (a long slider can outlast later notes)
+		while (head<tail && notes[head].removed) head++;
+	}
+
+	boolean done() {
+		//every note has been removed
+		expire();
+		return head == notes.length;
+	}
+}
@@ -0,0 +1,83 @@
+/* osu! binary beatmap cache
+ * After a map is parsed once, its ParsedBeatmap is saved next to it as map.cache
+ * Loading the cache is just reading numbers out of a memory-mapped file, no text parsing
+ * The cache is thrown out when map.osu changes (size, modified time, and a CRC32 hash if only the time changed)
+ */
+
+package osu;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+class BeatmapCache {
+	static final int MAGIC = 0x4F535543; //"OSUC"
+	static final int VERSION = 7; //change whenever the layout below changes
+	static final int HEADER = 4+4+8+8+8; //magic, version, source size, source time, source hash
+
+	File file; //the cache file
+
+	BeatmapCache(File beatmap) {
+		file = new File(beatmap.getParentFile(), "map.cache");
+	}
+
+	ParsedBeatmap load(File beatmap) {
+		//null if there is no valid cache
+		if (!file.exists()) return null;
+		try (FileChannel ch = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+			//header is read normally so an out of date cache is never mapped (mapped files can't be replaced on Windows)
+			ByteBuffer header = ByteBuffer.allocate(HEADER);
+			while (header.hasRemaining()) {
+				if (ch.read(header)<0) return null;
+			}
+			header.flip();
+			if (header.getInt() != MAGIC || header.getInt() != VERSION) return null;
+			long size = header.getLong();
+			long time = header.getLong();
+			long hash = header.getLong();
+			if (size != beatmap.length()) return null;
+			if (time != beatmap.lastModified() && hash != hash(beatmap)) return null;
+
+			MappedByteBuffer b = ch.map(FileChannel.MapMode.READ_ONLY, HEADER, ch.size()-HEADER);
+			return new ParsedBeatmap(b);
+		} catch (IOException | RuntimeException e) {
+			//broken cache, just parse the map again
+			System.out.println(e.toString());
+			return null;
+		}
+	}
+
+	void save(File beatmap, ParsedBeatmap parsed) {
+		File temp = new File(file.getPath()+".tmp");
+		try {
+			try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)))) {
+				out.writeInt(MAGIC);
+				out.writeInt(VERSION);
+				out.writeLong(beatmap.length());
+				out.writeLong(beatmap.lastModified());
+				out.writeLong(hash(beatmap));
+				parsed.write(out);
+			}
+			Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		} catch (IOException e) {
+			//not fatal, the map just gets parsed again next time
+			System.out.println(e.toString());
+			temp.delete();
+		}
+	}
+
+	static long hash(File beatmap) throws IOException {
+		CRC32 crc = new CRC32();
+		crc.update(Files.readAllBytes(beatmap.toPath()));
+		return crc.getValue();
+	}
+}
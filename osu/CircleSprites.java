@@ -0,0 +1,63 @@
+/* osu! hit circle sprites
+ * A circle's face (fill, outline and combo number) only depends on the circle size, the combo number and the colour,
+ * so each one is drawn once into an image and a frame just draws that image at the circle's fade alpha
+ * Circle size is the same for a whole map, so the cache is thrown out when it changes
+ */
+
+package osu;
+
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.Transparency;
+import java.awt.image.BufferedImage;
+import java.util.HashMap;
+
+class CircleSprites {
+	static final int PAD = 3; //room around the circle for the outline (5px, half of it outside)
+	static final int ALPHA = 192; //fill and outline alpha when fully faded in
+
+	BufferedImage sprites; //spritesheet with the combo digits
+	int size = -1; //circle size the faces are drawn at
+	HashMap<Long,BufferedImage> faces = new HashMap<Long,BufferedImage>(); //colour and combo -> face
+
+	CircleSprites(BufferedImage sprites) {
+		this.sprites = sprites;
+	}
+
+	BufferedImage face(int size, int combo, Color color) {
+		//face for a circle of this size, drawn the first time it's needed (top left is PAD above and left of the circle)
+		if (size != this.size) {
+			faces.clear();
+			this.size = size;
+		}
+		long key = (long) color.getRGB()<<32 | combo;
+		BufferedImage img = faces.get(key);
+		if (img != null) return img;
+
+		img = OsuClasses.compatibleImage(size+PAD*2, size+PAD*2, Transparency.TRANSLUCENT);
+		Graphics2D g = img.createGraphics();
+		g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+		g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+		g.translate(PAD, PAD);
+		//main circle
+		g.setColor(new Color(color.getRed(), color.getGreen(), color.getBlue(), ALPHA));
+		g.fillOval(0, 0, size, size);
+		g.setColor(new Color(255,255,255,ALPHA));
+		g.setStroke(new BasicStroke(5));
+		g.drawOval(0, 0, size, size);
+		//visual combo
+		if (combo<10) {
+			g.drawImage(sprites, 0, 0, size, size, 128*combo, 64, 128+128*combo, 192, null);
+		} else {
+			int ones = combo%10;
+			int tens = (combo%100)/10;
+			g.drawImage(sprites, 0, size/8, size*3/4, size*7/8, 128*tens, 64, 128+128*tens, 192, null);
+			g.drawImage(sprites, size*1/4, size/8, size, size*7/8, 128*ones, 64, 128+128*ones, 192, null);
+		}
+		g.dispose();
+		faces.put(key, img);
+		return img;
+	}
+}
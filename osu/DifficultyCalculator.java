@@ -0,0 +1,121 @@
+/* osu! difficulty calculator
+ * Star rating from the notes of a map, in the style of osu!'s old strain system
+ * Every note adds to an aim strain (how far the cursor has to move, and how fast) and a speed strain (how fast notes
+ * come, more for notes spaced out like streams and jumps), and both strains decay over time
+ * The hardest 400ms sections count the most, so a short hard part rates higher than a long easy map
+ */
+
+package osu;
+
+import java.util.Arrays;
+
+class DifficultyCalculator {
+	static final int SECTION = 400; //ms per strain section
+	static final double DECAY_WEIGHT = 0.9; //each section counts this much less than the one harder than it
+	static final double AIM_DECAY = 0.15, SPEED_DECAY = 0.3; //strain left after 1s
+	static final double AIM_WEIGHT = 26.25, SPEED_WEIGHT = 1400;
+	static final double STAR_SCALE = 0.0675;
+
+	//notes in time order, positions and distances in osu! pixels
+	int n = 0;
+	int[] time = new int[16];
+	double[] startX = new double[16], startY = new double[16];
+	double[] endX = new double[16], endY = new double[16];
+	double[] travel = new double[16]; //distance a slider's ball moves, 0 for circles
+
+	double aim, speed, stars;
+
+	void rate(ParsedBeatmap b) {
+		//fills in aim, speed and stars
+		notes(b);
+		double scale = 52/(54.4-4.48*b.CS); //distances are judged as if every circle were the same size
+		aim = rating(true, scale);
+		speed = rating(false, scale);
+		stars = aim+speed+Math.abs(speed-aim)*0.5;
+	}
+
+	void notes(ParsedBeatmap b) {
+		//circles and slider heads merged into one list by time (spinners don't count)
+		n = 0;
+		int c = 0, s = 0;
+		while (c<b.circleTime.length || s<b.sliderTime.length) {
+			if (n == time.length) grow();
+			if (s == b.sliderTime.length || (c<b.circleTime.length && b.circleTime[c]<=b.sliderTime[s])) {
+				time[n] = b.circleTime[c];
+				startX[n] = endX[n] = b.circleX[c]*2/3.0;
+				startY[n] = endY[n] = b.circleY[c]*2/3.0;
+				travel[n] = 0;
+				c++;
+			} else {
+				SliderShape shape = b.sliderShapes[s];
+				time[n] = b.sliderTime[s];
+				startX[n] = (shape.controlPoints[0][0]*3/2-b.sliderStack[s])*2/3.0;
+				startY[n] = (shape.controlPoints[0][1]*3/2-b.sliderStack[s])*2/3.0;
+				//odd number of slides ends at the tail, even back at the head
+				//the last control point stands in for the tail, building the path would cost more than the whole rating
+				int[] last = shape.controlPoints[shape.controlPoints.length-1];
+				if (b.sliderSlides[s]%2 == 1) {
+					endX[n] = (last[0]*3/2-b.sliderStack[s])*2/3.0;
+					endY[n] = (last[1]*3/2-b.sliderStack[s])*2/3.0;
+				} else {
+					endX[n] = startX[n];
+					endY[n] = startY[n];
+				}
+				travel[n] = shape.length*b.sliderSlides[s];
+				s++;
+			}
+			n++;
+		}
+	}
+
+	double rating(boolean aimSkill, double scale) {
+		//strain peaks of every section, hardest first and weighted down
+		double[] peaks = new double[n == 0 ? 0 : (time[n-1]-time[0])/SECTION+1];
+		double decay = aimSkill ? AIM_DECAY : SPEED_DECAY;
+		double strain = 0, peak = 0;
+		int section = 0;
+		int sectionEnd = n == 0 ? 0 : time[0]+SECTION;
+		for (int i = 1; i<n; i++) {
+			//close finished sections, the next one starts at the strain left at its start
+			while (time[i]>sectionEnd) {
+				peaks[section++] = peak;
+				peak = strain*Math.pow(decay, (sectionEnd-time[i-1])/1000.0);
+				sectionEnd+=SECTION;
+			}
+			double delta = Math.max(time[i]-time[i-1], 50);
+			double distance = Math.hypot(startX[i]-endX[i-1], startY[i]-endY[i-1])*scale;
+			double value;
+			if (aimSkill) value = (Math.pow(distance, 0.99)+Math.pow(travel[i-1]*scale, 0.99))/delta*AIM_WEIGHT;
+			else value = spacing(distance)/delta*SPEED_WEIGHT;
+			strain = strain*Math.pow(decay, delta/1000)+value;
+			peak = Math.max(peak, strain);
+		}
+		if (section<peaks.length) peaks[section++] = peak;
+
+		Arrays.sort(peaks, 0, section);
+		double difficulty = 0, weight = 1;
+		for (int i = section-1; i>=0; i--) {
+			difficulty+=peaks[i]*weight;
+			weight*=DECAY_WEIGHT;
+		}
+		return Math.sqrt(difficulty)*STAR_SCALE;
+	}
+
+	static double spacing(double distance) {
+		//how much a note's spacing adds to speed, close notes are tapped in place, far ones are streams or jumps
+		if (distance>125) return 2.5;
+		if (distance>110) return 1.6+0.9*(distance-110)/15;
+		if (distance>90) return 1.2+0.4*(distance-90)/20;
+		if (distance>45) return 0.95+0.25*(distance-45)/45;
+		return 0.95;
+	}
+
+	void grow() {
+		time = Arrays.copyOf(time, n*2);
+		startX = Arrays.copyOf(startX, n*2);
+		startY = Arrays.copyOf(startY, n*2);
+		endX = Arrays.copyOf(endX, n*2);
+		endY = Arrays.copyOf(endY, n*2);
+		travel = Arrays.copyOf(travel, n*2);
+	}
+}
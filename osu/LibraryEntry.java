@@ -0,0 +1,43 @@
+/* osu! library entry
+ * One map in song select, everything shown about it without opening the map
+ * Read by OsuParser.scan and kept in the library index (LibraryIndex)
+ */
+
+package osu;
+
+class LibraryEntry {
+	static final double UNRATED = -1; //stars of a map that hasn't been rated (yet, or it couldn't be parsed)
+
+	String folder = ""; //folder in osuYM
+	long folderTime = 0, mapTime = 0; //last modified times of the folder and map.osu when this was read
+	String title = "", artist = "", version = "";
+	double CS, AR, OD, HP;
+	double bpm = 0;
+	int length = 0; //ms from first to last note
+	int circles = 0, sliders = 0, spinners = 0;
+	double aim = 0, speed = 0, stars = UNRATED; //difficulty ratings (DifficultyCalculator)
+
+	LibraryEntry rated(DifficultyCalculator d) {
+		//copy of this entry with the ratings filled in, published entries are never changed
+		LibraryEntry e = new LibraryEntry();
+		e.folder = folder;
+		e.folderTime = folderTime;
+		e.mapTime = mapTime;
+		e.title = title;
+		e.artist = artist;
+		e.version = version;
+		e.CS = CS;
+		e.AR = AR;
+		e.OD = OD;
+		e.HP = HP;
+		e.bpm = bpm;
+		e.length = length;
+		e.circles = circles;
+		e.sliders = sliders;
+		e.spinners = spinners;
+		e.aim = d.aim;
+		e.speed = d.speed;
+		e.stars = d.stars;
+		return e;
+	}
+}
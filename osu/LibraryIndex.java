@@ -0,0 +1,218 @@
+/* osu! song library index
+ * Every map in osuYM with what song select shows about it, saved to osuYM/library.idx
+ * Opening the library reads the whole index in one go and decodes it from memory so song select can show it straight away
+ * (not memory-mapped: the file is replaced after the refresh, and Windows can't replace a file that is still mapped)
+ * Then, in the background, only maps whose folder or map.osu changed since last time are read again (new folders are
+ * added, missing ones are dropped) and the list is swapped for the new one
+ * Unrated maps (read again, or not rated last time) are then fully parsed for their star rating, one map per task on the
+ * common pool, and the list is swapped again once they are all done
+ */
+
+package osu;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+class LibraryIndex {
+	static final int MAGIC = 0x4F53554C; //"OSUL"
+	static final int VERSION = 3; //change whenever the layout below changes (3: stars are UNRATED instead of 0 when not rated)
+
+	File root; //folder with all the map folders
+	File file; //the index file
+	volatile ArrayList<LibraryEntry> entries = new ArrayList<LibraryEntry>(); //sorted by folder name, never changed once set
+	Thread refresher; //background refresh, null if none is running
+
+	LibraryIndex(File root) {
+		this.root = root;
+		file = new File(root, "library.idx");
+	}
+
+	void open() {
+		//saved entries, the first time only
+		if (entries.isEmpty()) entries = load();
+	}
+
+	synchronized void refreshLater() {
+		//refresh on a background thread, unless one is already running
+		if (refresher != null && refresher.isAlive()) return;
+		refresher = new Thread(this::refresh, "library refresh");
+		refresher.setDaemon(true);
+		refresher.start();
+	}
+
+	void refresh() {
+		//bring the index up to date with the folders on disk, only reading maps that changed
+		HashMap<String,LibraryEntry> old = new HashMap<String,LibraryEntry>();
+		open();
+		for (LibraryEntry e : entries) old.put(e.folder, e);
+
+		String[] names = root.list();
+		if (names == null) names = new String[0];
+		Arrays.sort(names);
+		ArrayList<LibraryEntry> fresh = new ArrayList<LibraryEntry>(names.length);
+		ArrayList<ForkJoinTask<LibraryEntry>> ratings = new ArrayList<ForkJoinTask<LibraryEntry>>(); //star ratings of the unrated maps
+		ArrayList<Integer> rated = new ArrayList<Integer>(); //where each of them goes in fresh
+		boolean changed = false;
+		for (String name : names) {
+			File folder = new File(root, name);
+			File map = new File(folder, "map.osu");
+			long mapTime = map.lastModified(); //0 if there is no map (or it isn't a folder)
+			if (mapTime == 0) continue;
+			LibraryEntry e = old.remove(name);
+			if (e == null || e.folderTime != folder.lastModified() || e.mapTime != mapTime) {
+				try {
+					e = new OsuParser().scan(map);
+				} catch (IOException ex) {
+					System.out.println(ex.toString());
+					continue;
+				}
+				e.folder = name;
+				e.folderTime = folder.lastModified();
+				e.mapTime = mapTime;
+				changed = true;
+			}
+			if (e.stars == LibraryEntry.UNRATED) {
+				LibraryEntry unrated = e;
+				ratings.add(ForkJoinPool.commonPool().submit(() -> rate(unrated, map)));
+				rated.add(fresh.size());
+			}
+			fresh.add(e);
+		}
+		if (!old.isEmpty()) changed = true; //folders were deleted
+
+		//song select gets the new maps straight away, unrated
+		entries = fresh;
+		if (changed || !file.exists()) save();
+		if (ratings.isEmpty()) return;
+
+		//then again with the ratings, as a new list so the search and the star sort see the change
+		ArrayList<LibraryEntry> all = new ArrayList<LibraryEntry>(fresh);
+		changed = false;
+		for (int i = 0; i<ratings.size(); i++) {
+			LibraryEntry e = ratings.get(i).join();
+			if (e == null) continue;
+			all.set(rated.get(i), e);
+			changed = true;
+		}
+		if (!changed) return;
+		entries = all;
+		save();
+	}
+
+	static LibraryEntry rate(LibraryEntry e, File map) {
+		//e with the star rating from the whole map, null (e stays unrated) if it can't be parsed
+		try {
+			DifficultyCalculator d = new DifficultyCalculator();
+			d.rate(new OsuParser().parse(map));
+			return e.rated(d);
+		} catch (IOException | RuntimeException ex) {
+			System.out.println(ex.toString());
+			return null;
+		}
+	}
+
+	ArrayList<LibraryEntry> load() {
+		//entries saved last time, empty if there is no valid index
+		ArrayList<LibraryEntry> list = new ArrayList<LibraryEntry>();
+		if (!file.exists()) return list;
+		try (FileChannel ch = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+			ByteBuffer b = ByteBuffer.allocate((int) ch.size());
+			while (b.hasRemaining()) {
+				if (ch.read(b)<0) return list;
+			}
+			b.flip();
+			if (b.getInt() != MAGIC || b.getInt() != VERSION) return list;
+			int n = b.getInt();
+			list.ensureCapacity(n);
+			for (int i = 0; i<n; i++) {
+				LibraryEntry e = new LibraryEntry();
+				e.folder = getString(b);
+				e.folderTime = b.getLong();
+				e.mapTime = b.getLong();
+				e.title = getString(b);
+				e.artist = getString(b);
+				e.version = getString(b);
+				e.CS = b.getDouble();
+				e.AR = b.getDouble();
+				e.OD = b.getDouble();
+				e.HP = b.getDouble();
+				e.bpm = b.getDouble();
+				e.length = b.getInt();
+				e.circles = b.getInt();
+				e.sliders = b.getInt();
+				e.spinners = b.getInt();
+				e.aim = b.getDouble();
+				e.speed = b.getDouble();
+				e.stars = b.getDouble();
+				list.add(e);
+			}
+		} catch (IOException | RuntimeException e) {
+			//broken index, every map is read again
+			System.out.println(e.toString());
+			list.clear();
+		}
+		return list;
+	}
+
+	void save() {
+		File temp = new File(file.getPath()+".tmp");
+		try {
+			try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)))) {
+				out.writeInt(MAGIC);
+				out.writeInt(VERSION);
+				out.writeInt(entries.size());
+				for (LibraryEntry e : entries) {
+					putString(out, e.folder);
+					out.writeLong(e.folderTime);
+					out.writeLong(e.mapTime);
+					putString(out, e.title);
+					putString(out, e.artist);
+					putString(out, e.version);
+					out.writeDouble(e.CS);
+					out.writeDouble(e.AR);
+					out.writeDouble(e.OD);
+					out.writeDouble(e.HP);
+					out.writeDouble(e.bpm);
+					out.writeInt(e.length);
+					out.writeInt(e.circles);
+					out.writeInt(e.sliders);
+					out.writeInt(e.spinners);
+					out.writeDouble(e.aim);
+					out.writeDouble(e.speed);
+					out.writeDouble(e.stars);
+				}
+			}
+			Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		} catch (IOException e) {
+			//not fatal, changed maps just get read again next time
+			System.out.println(e.toString());
+			temp.delete();
+		}
+	}
+
+	static String getString(ByteBuffer b) {
+		byte[] a = new byte[b.getInt()];
+		b.get(a);
+		return new String(a, StandardCharsets.UTF_8);
+	}
+
+	static void putString(DataOutputStream out, String s) throws IOException {
+		byte[] a = s.getBytes(StandardCharsets.UTF_8);
+		out.writeInt(a.length);
+		out.write(a);
+	}
+}
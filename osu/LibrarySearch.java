@@ -0,0 +1,157 @@
+/* osu! song select search
+ * Every map's title, artist and difficulty name is indexed by each 1, 2 and 3 letter piece of it
+ * A search only checks the maps that have the rarest piece of the query in them, instead of every map
+ * Typing one more letter only has to check the maps that matched before it
+ */
+
+package osu;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+
+class LibrarySearch {
+	static final int GRAM = 3; //longest piece indexed
+
+	ArrayList<LibraryEntry> entries; //list the index was built from
+	String[] text; //searchable text of every entry, lower case
+	//piece -> entries with it, open addressing so keys aren't boxed (a list is its count, then entry numbers)
+	long[] keys = new long[1<<16];
+	int[][] lists = new int[1<<16][];
+	int size = 0;
+
+	//last search, so the next letter only narrows it down
+	String query = "";
+	int[] matches = new int[0];
+	int matchCount = 0;
+	ArrayList<LibraryEntry> results;
+	ArrayList<LibraryEntry> byStars, byStarsFrom; //results sorted by star rating, and the results they were sorted from
+
+	ArrayList<LibraryEntry> search(ArrayList<LibraryEntry> all, String q) {
+		//entries with every word of q somewhere in them, in library order
+		q = q.toLowerCase().trim();
+		if (q.isEmpty()) {
+			query = "";
+			return all;
+		}
+		if (all != entries) index(all); //first search since the library changed
+		if (q.equals(query)) return results;
+		String[] words = q.split(" +");
+
+		if (!query.isEmpty() && q.startsWith(query)) {
+			//longer query, only what matched before can still match
+			int n = 0;
+			for (int i = 0; i<matchCount; i++) {
+				if (matches(matches[i], words)) matches[n++] = matches[i];
+			}
+			matchCount = n;
+		} else {
+			//entries with the rarest piece of any word, checked in full
+			int[] best = null;
+			for (String w : words) {
+				for (int i = 0; i+Math.min(GRAM, w.length())<=w.length(); i++) {
+					int[] list = lists[slot(key(w, i, Math.min(GRAM, w.length())))];
+					if (list == null) {
+						best = list;
+						break;
+					}
+					if (best == null || list[0]<best[0]) best = list;
+				}
+				if (best == null) break;
+			}
+			matchCount = 0;
+			if (best != null) {
+				if (matches.length<best[0]) matches = new int[best[0]];
+				for (int i = 1; i<=best[0]; i++) {
+					if (matches(best[i], words)) matches[matchCount++] = best[i];
+				}
+			}
+		}
+
+		query = q;
+		results = new ArrayList<LibraryEntry>(matchCount);
+		for (int i = 0; i<matchCount; i++) results.add(entries.get(matches[i]));
+		return results;
+	}
+
+	ArrayList<LibraryEntry> byStars(ArrayList<LibraryEntry> found) {
+		//search results easiest first and unrated maps last, the index doesn't change with the order (sorted again only when the results do)
+		if (found != byStarsFrom) {
+			byStars = new ArrayList<LibraryEntry>(found);
+			byStars.sort(Comparator.comparingDouble(e -> e.stars == LibraryEntry.UNRATED ? Double.MAX_VALUE : e.stars));
+			byStarsFrom = found;
+		}
+		return byStars;
+	}
+
+	void index(ArrayList<LibraryEntry> all) {
+		entries = all;
+		text = new String[all.size()];
+		Arrays.fill(lists, null);
+		size = 0;
+		query = "";
+		for (int id = 0; id<all.size(); id++) {
+			LibraryEntry e = all.get(id);
+			String t = (e.title+" "+e.artist+" "+e.version).toLowerCase();
+			text[id] = t;
+			for (int i = 0; i<t.length(); i++) {
+				for (int len = 1; len<=GRAM && i+len<=t.length(); len++) {
+					add(key(t, i, len), id);
+				}
+			}
+		}
+	}
+
+	int slot(long key) {
+		//where key is, or the empty slot it would go in
+		int mask = keys.length-1;
+		int i = (int)((key*0x9E3779B97F4A7C15L)>>>40) & mask;
+		while (lists[i] != null && keys[i] != key) i = (i+1) & mask;
+		return i;
+	}
+
+	void add(long key, int id) {
+		int i = slot(key);
+		int[] list = lists[i];
+		if (list == null) {
+			if (size*2>=keys.length) {
+				grow();
+				i = slot(key);
+			}
+			keys[i] = key;
+			lists[i] = list = new int[4];
+			size++;
+		}
+		if (list[0]>0 && list[list[0]] == id) return; //piece already seen in this entry
+		if (list[0]+1 == list.length) lists[i] = list = Arrays.copyOf(list, list.length*2);
+		list[++list[0]] = id;
+	}
+
+	void grow() {
+		//table over half full, double it
+		long[] oldKeys = keys;
+		int[][] oldLists = lists;
+		keys = new long[oldKeys.length*2];
+		lists = new int[oldLists.length*2][];
+		for (int i = 0; i<oldKeys.length; i++) {
+			if (oldLists[i] == null) continue;
+			int j = slot(oldKeys[i]);
+			keys[j] = oldKeys[i];
+			lists[j] = oldLists[i];
+		}
+	}
+
+	boolean matches(int id, String[] words) {
+		for (String w : words) {
+			if (!text[id].contains(w)) return false;
+		}
+		return true;
+	}
+
+	static long key(String s, int start, int len) {
+		//up to 3 chars packed into a long (16 bits each)
+		long k = len;
+		for (int i = 0; i<len; i++) k = k<<16 | s.charAt(start+i);
+		return k;
+	}
+}
@@ -0,0 +1,24 @@
+/* osu! loaded map
+ * Everything needed to play a map, loaded before it is played (MapPrefetcher)
+ */
+
+package osu;
+
+import java.awt.image.BufferedImage;
+
+import javax.sound.sampled.Clip;
+
+class LoadedMap {
+	String folder;
+	ParsedBeatmap beatmap;
+	BufferedImage bg;
+	Clip song; //null if it couldn't be opened
+	LoadedMap(String folder) {
+		this.folder = folder;
+	}
+
+	void close() {
+		//for a map that won't be played after all
+		if (song != null) song.close();
+	}
+}
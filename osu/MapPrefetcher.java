@@ -0,0 +1,94 @@
+/* osu! map prefetcher
+ * While song select sits on a map, its beatmap, background and song are loaded on a background thread
+ * Scrolling away stops the load (it checks between steps), and picking the map just takes what was loaded
+ * One thread does every load in order, so an old load is always finished (and thrown away) before the next one starts
+ */
+
+package osu;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+class MapPrefetcher {
+	static final int DELAY = 250; //ms the selection has to stay on a map before it is loaded
+
+	File root; //folder with all the map folders
+	ExecutorService executor = Executors.newSingleThreadExecutor(r -> {
+		Thread t = new Thread(r, "map prefetch");
+		t.setDaemon(true);
+		return t;
+	});
+	volatile String wanted; //map that should be loaded, null if none
+	Future<LoadedMap> future; //latest load
+	String futureFolder; //map of the latest load
+
+	MapPrefetcher(File root) {
+		this.root = root;
+	}
+
+	void prefetch(String folder) {
+		//start loading a map (nothing happens if it is already loading or loaded)
+		if (folder.equals(wanted) && folder.equals(futureFolder)) return;
+		wanted = folder;
+		Future<LoadedMap> old = future;
+		futureFolder = folder;
+		future = executor.submit(() -> {
+			//the last load is done by now, keep it if it is this map
+			LoadedMap last = get(old);
+			if (last != null && last.folder.equals(folder)) return last;
+			if (last != null) last.close();
+			return load(folder);
+		});
+	}
+
+	void cancel() {
+		//loads stop at their next step, and their result is thrown away
+		wanted = null;
+	}
+
+	LoadedMap take(String folder) throws IOException {
+		//the map, loaded in the background if it was prefetched (waits if it isn't done yet)
+		prefetch(folder);
+		LoadedMap m = get(future);
+		future = null;
+		futureFolder = null;
+		wanted = null;
+		if (m == null) {
+			//the load failed, try again on this thread
+			wanted = folder;
+			m = load(folder);
+			wanted = null;
+		}
+		return m;
+	}
+
+	LoadedMap load(String folder) throws IOException {
+		//null if the map stopped being wanted part way
+		LoadedMap m = new LoadedMap(folder);
+		m.beatmap = OsuReader.loadBeatmap(new File(root, folder+"/map.osu"));
+		if (!folder.equals(wanted)) return null;
+		m.bg = OsuClasses.loadImage(new File(root, folder+"/bg.jpg").getPath());
+		if (!folder.equals(wanted)) return null;
+		m.song = OsuReader.openClip(new File(root, folder+"/song.wav").getPath());
+		if (!folder.equals(wanted)) {
+			m.close();
+			return null;
+		}
+		return m;
+	}
+
+	static LoadedMap get(Future<LoadedMap> f) {
+		//result of a load, null if there was none or it failed
+		if (f == null) return null;
+		try {
+			return f.get();
+		} catch (InterruptedException | ExecutionException e) {
+			System.out.println(e.toString());
+			return null;
+		}
+	}
+}
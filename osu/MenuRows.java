@@ -0,0 +1,65 @@
+/* osu! song select rows
+ * Each map's row in song select (outline, title, info) is drawn once into an image and reused every frame after
+ * Only the last rows that were on screen are kept, so a huge library doesn't turn into a huge pile of images
+ * The black bar and fade at the top of song select are drawn once too
+ */
+
+package osu;
+
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+class MenuRows {
+	static final int CACHED = 64; //rows kept drawn (a screen only shows about 7)
+
+	int width, height; //size of a row's outline
+	Font title, info;
+	BufferedImage fade; //top bar and fade under it
+	LinkedHashMap<LibraryEntry,BufferedImage> rows = new LinkedHashMap<LibraryEntry,BufferedImage>(CACHED, 0.75f, true) {
+		protected boolean removeEldestEntry(Map.Entry<LibraryEntry,BufferedImage> eldest) {
+			return size()>CACHED; //least recently drawn row goes first
+		}
+	};
+
+	MenuRows(int width, int height, Font title, Font info, int winx, int winy) {
+		this.width = width;
+		this.height = height;
+		this.title = title;
+		this.info = info;
+
+		//black bar over the top sixth of the screen, then a fade to clear over the next sixth
+		fade = new BufferedImage(winx, winy/3, BufferedImage.TYPE_INT_ARGB);
+		Graphics2D g = fade.createGraphics();
+		g.setColor(Color.BLACK);
+		g.fillRect(0, 0, winx, winy/6);
+		for (int i = 0; i<winy/6; i++) {
+			g.setColor(new Color(0,0,0,255-i*255*6/winy));
+			g.drawLine(0, i+winy/6, winx, i+winy/6);
+		}
+		g.dispose();
+	}
+
+	BufferedImage row(LibraryEntry e) {
+		//the row for a map, drawn the first time it is needed
+		BufferedImage img = rows.get(e);
+		if (img != null) return img;
+		img = new BufferedImage(width+1, height+1, BufferedImage.TYPE_INT_ARGB); //+1, outlines are drawn on the edge
+		Graphics2D g = img.createGraphics();
+		g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+		g.setColor(Color.WHITE);
+		g.drawRect(0, 0, width, height);
+		g.setFont(title);
+		g.drawString(e.title+" - "+e.artist, 20, height/2);
+		g.setFont(info);
+		String stars = e.stars == LibraryEntry.UNRATED ? "?" : String.format("%.2f", e.stars); //rated later by the refresh
+		g.drawString(String.format("[%s]  %s*  %d:%02d  %.0f BPM  CS%.1f AR%.1f OD%.1f HP%.1f  %d notes", e.version, stars, e.length/60000, e.length/1000%60, e.bpm, e.CS, e.AR, e.OD, e.HP, e.circles+e.sliders+e.spinners), 20, height/2+35);
+		g.dispose();
+		rows.put(e, img);
+		return img;
+	}
+}
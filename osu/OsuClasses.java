@@ -5,7 +5,12 @@
 
 package osu;
 
+import java.awt.AlphaComposite;
+import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.GraphicsEnvironment;
 import java.awt.Rectangle;
+import java.awt.Transparency;
 import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.IOException;
@@ -27,32 +32,55 @@ public class OsuClasses {
 		//if (img == null) System.out.println("null");
 		//else System.out.printf("w=%d, h=%d%n",img.getWidth(),img.getHeight());
 		
-		return img;
+		return compatible(img);
+	}
+	
+	static BufferedImage compatible(BufferedImage img) {
+		//copied once into the screen's format (ImageIO gives 3 byte BGR, indexed, etc, which blit through slow loops)
+		//transparency is kept, opaque images stay opaque
+		if (img == null) return null;
+		int transparency = img.getColorModel().getTransparency();
+		if (GraphicsEnvironment.isHeadless()) {
+			if (img.getType() == (transparency == Transparency.OPAQUE ? BufferedImage.TYPE_INT_RGB : BufferedImage.TYPE_INT_ARGB)) return img;
+		}
+		else {
+			GraphicsConfiguration gc = GraphicsEnvironment.getLocalGraphicsEnvironment().getDefaultScreenDevice().getDefaultConfiguration();
+			if (img.getColorModel().equals(gc.getColorModel(transparency))) return img;
+		}
+		BufferedImage c = compatibleImage(img.getWidth(), img.getHeight(), transparency);
+		Graphics2D g = c.createGraphics();
+		g.setComposite(AlphaComposite.Src); //copy alpha as is
+		g.drawImage(img, 0, 0, null);
+		g.dispose();
+		return c;
+	}
+	
+	static BufferedImage compatibleImage(int width, int height, int transparency) {
+		//image in the screen's own format so drawing it needs no conversion (plain ARGB/RGB with no screen)
+		if (GraphicsEnvironment.isHeadless()) {
+			return new BufferedImage(width, height, transparency == Transparency.OPAQUE ? BufferedImage.TYPE_INT_RGB : BufferedImage.TYPE_INT_ARGB);
+		}
+		GraphicsConfiguration gc = GraphicsEnvironment.getLocalGraphicsEnvironment().getDefaultScreenDevice().getDefaultConfiguration();
+		return gc.createCompatibleImage(width, height, transparency);
 	}
 }
 
-/* Overarching class consisting of circles and sliders
+/* Overarching class of circles, sliders and spinners
  * Used when they need to be mixed, such as drawing in chronological order
  */
-class HitObject {
-	int time = 0; //time of object
-	int type = -1; //0 is circle, 1 is slider, -1 is placeholder
-	int ID = -1; //ID (chronological), -1 placeholder
-	HitObject (int time, int type, int ID) {
-		this.time = time;
-		this.type = type;
-		this.ID = ID;
-	}
+class HitObject extends Rectangle {
+	private static final long serialVersionUID = 1L;
+	int time = 0; //when the object should be hit
+	int type = -1; //0 is circle, 1 is slider, 2 is spinner
+	int ID = 0; //ID (chronological, per type)
+	int state = 4; //4 means not clicked, 0-3 mean clicked and mean miss, 50, 100, and 300 accuracy respectively
+	boolean removed = false; //faded out and taken off its note list
 }
 
 /* The standard hit circle
  * Tap it at its specified time
  */
-class HitCircle extends Rectangle {
-	int time = 0; //when circle should be hit
-	int type = 0;
-	int ID = 0; //circle ID
-	int state = 4; //4 means not clicked, 0-3 mean clicked and mean miss, 50, 100, and 300 accuracy respectively
+class HitCircle extends HitObject {
 	int combo = 0; //visual combo (for player reading)
 	int clickedTime = 0; //when circle is actually hit
 	HitCircle(int x, int y, int time, int ID, int combo) {
@@ -60,6 +88,7 @@ class HitCircle extends Rectangle {
 		this.y = y; //y position
 		width = height = (int)(54.4-4.48*OsuReader.CS)*3; //size of circle, determined by circleSize variable
 		this.time = time;
+		type = 0;
 		this.ID = ID;
 		this.combo = combo;
 	}
@@ -68,47 +97,62 @@ class HitCircle extends Rectangle {
 /* Slider
  * Tap its beginning like a circle, but hold and follow its path until the end
  */
-class Slider extends Rectangle {
-	int time = 0; //slider start
-	int type = 1;
-	int ID = 0; //slider ID
+class Slider extends HitObject {
 	int duration = 0; //duration of slider
 	int slides = 0; //repeats (1 is no repeat, 2 is repeat once, etc)
 	int tempslides=0; //slides but increments down as the slider is played
-	int state = 4;
 	int combo = 0;
 	boolean finished = false; //ensures accuracy is only calculated once per slider
 	int[] touched = new int[2]; //[0] is #frames slider has been followed, [1] is #frames in total, ratio determines accuracy
-	int[][] points; //every single point on the slider
+	SliderShape shape; //what the path is built from
+	volatile int[][] points; //points evenly spaced along the slider (head to tail), null until SliderPathLoader builds it
+	BufferedImage body; //slider body drawn at full fade in alpha, built with points
+	int bodyX, bodyY; //where the body image's corner goes
 	boolean direction = false; //which way it is repeating
-	Slider(int[][] points, int time, int duration, int slides, int ID, int combo) {
-		this.points = points;
-		this.x = points[0][0]; //changes as the slider moves
-		this.y = points[0][1];
+	int stack = 0; //pixels the whole slider is shifted up and left by stacking
+	Slider(SliderShape shape, int stack, int time, int duration, int slides, int ID, int combo) {
+		this.shape = shape;
+		this.stack = stack;
+		this.x = shape.controlPoints[0][0]*3/2-stack; //changes as the slider moves
+		this.y = shape.controlPoints[0][1]*3/2-stack;
 		width = height = (int)(54.4-4.48*OsuReader.CS)*3;
 		this.time = time;
+		type = 1;
 		this.duration = duration;
 		this.slides = slides;
 		tempslides = slides;
 		this.ID = ID;
 		this.combo = combo;
 	}
+
+	void positionAt(double progress) {
+		//move to progress (0 is the head, 1 is the tail) along the slider, in between the two closest points
+		double f = progress*(points.length-1);
+		int i = (int)f;
+		if (i<0) i = 0;
+		if (i>=points.length-1) {
+			x = points[points.length-1][0];
+			y = points[points.length-1][1];
+			return;
+		}
+		double r = f-i;
+		x = (int) Math.round(points[i][0]+(points[i+1][0]-points[i][0])*r);
+		y = (int) Math.round(points[i][1]+(points[i+1][1]-points[i][1])*r);
+	}
 }
 
 /* Spinner
  * Hold and spin with the cursor around the center of the screen
  * No x or y because it is a screen-wide feature
  */
-class Spinner extends Rectangle {
-	int time = 0;
-	int type = 2;
+class Spinner extends HitObject {
 	int endTime = 0; //when the spinner ends
-	int state = 4;
 	int dT = 0; //delta theta for current spin
 	int spin = 0; //# of spins done (dT reaches +-360 and resets)
 	boolean finished = false;
 	Spinner(int time, int endTime) {
 		this.time = time;
+		type = 2;
 		this.endTime = endTime;
 	}
 }
@@ -0,0 +1,389 @@
+/* osu! beatmap parser
+ * Reads a .osu file in a single pass, switching on the [Section] headers
+ * Fields are read straight out of the file bytes (no Scanner, no split), and notes are collected into a ParsedBeatmap
+ * Nothing global is touched, so a map can be parsed while another one is being played
+ */
+
+package osu;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+
+class OsuParser {
+	//sections of the file that matter
+	static final int OTHER = 0;
+	static final int METADATA = 1;
+	static final int DIFFICULTY = 2;
+	static final int EVENTS = 3;
+	static final int TIMINGPOINTS = 4;
+	static final int HITOBJECTS = 5;
+
+	//powers of 10 for number parsing
+	static final double[] POW10 = {1e0,1e1,1e2,1e3,1e4,1e5,1e6,1e7,1e8,1e9,1e10,1e11,1e12,1e13,1e14,1e15,1e16,1e17,1e18};
+
+	//file data
+	byte[] data;
+	int pos = 0; //current position in the line
+	int lineEnd = 0; //end of the current line (exclusive)
+
+	//map data
+	String title = "";
+	String artist = "";
+	String version = ""; //difficulty name
+	double AR, OD, CS, HP, SM; //difficulty settings
+	int endTime = 0; //time of last note
+	int noteCombo = 1; //VISUAL note combo
+
+	//notes and data, in file order
+	ArrayList<int[]> circles = new ArrayList<int[]>(); //x,y,time,combo
+	ArrayList<int[]> sliders = new ArrayList<int[]>(); //time,duration,slides,combo
+	ArrayList<SliderShape> shapes = new ArrayList<SliderShape>(); //slider curve type, control points and length
+	ArrayList<int[]> spinners = new ArrayList<int[]>(); //time,endTime
+	ArrayList<int[]> breaks = new ArrayList<int[]>(); //start,end
+	ArrayList<TimingPoint> timingPoints = new ArrayList<TimingPoint>(); //every timing point
+	TimingPointTimeline timeline; //built from timingPoints when the first slider needs it
+
+	ParsedBeatmap parse(File beatmap) throws IOException {
+		open(beatmap);
+		int section = OTHER;
+		while (nextLine()) {
+			//section header, switch sections
+			if (data[pos] == '[') {
+				section = section();
+				continue;
+			}
+			if (startsWith("//")) continue; //comment
+
+			switch (section) {
+				case METADATA:
+					readMetadata();
+					break;
+				case DIFFICULTY:
+					readDifficulty();
+					break;
+				case EVENTS:
+					//breaks are "2,start,end" or "Break,start,end"
+					if (startsWith("2,") || startsWith("Break,")) {
+						skipField();
+						int start = nextInt();
+						int end = nextInt();
+						addBreak(start, end);
+					}
+					break;
+				case TIMINGPOINTS:
+					if (contains(',')) {
+						int time = nextInt();
+						addTimingPoint(time, nextNumber());
+					}
+					break;
+				case HITOBJECTS:
+					if (contains(',')) readHitObject();
+					break;
+			}
+		}
+		data = null;
+		return finish();
+	}
+
+	LibraryEntry scan(File beatmap) throws IOException {
+		//just what song select shows, no notes are built: info, difficulty, BPM, length and how many of each note
+		open(beatmap);
+		LibraryEntry e = new LibraryEntry();
+		int first = -1; //time of first note
+		int section = OTHER;
+		while (nextLine()) {
+			if (data[pos] == '[') {
+				section = section();
+				continue;
+			}
+			if (startsWith("//")) continue;
+
+			switch (section) {
+				case METADATA:
+					readMetadata();
+					break;
+				case DIFFICULTY:
+					readDifficulty();
+					break;
+				case TIMINGPOINTS:
+					//BPM of the first uninherited point
+					if (e.bpm == 0 && contains(',')) {
+						skipField();
+						double beatL = nextNumber();
+						if (beatL>0) e.bpm = 60000/beatL;
+					}
+					break;
+				case HITOBJECTS:
+					if (contains(',')) {
+						skipField();
+						skipField();
+						int time = nextInt();
+						int type = nextInt();
+						if (first<0) first = time;
+						if ((type & 8) != 0) {
+							e.spinners++;
+							skipField();
+							time = nextInt();
+						}
+						else if ((type & 2) == 0) e.circles++;
+						else e.sliders++;
+						if (time-first>e.length) e.length = time-first;
+					}
+					break;
+			}
+		}
+		data = null;
+		e.title = title;
+		e.artist = artist;
+		e.version = version;
+		e.CS = CS;
+		e.AR = AR;
+		e.OD = OD;
+		e.HP = HP;
+		return e;
+	}
+
+	void open(File beatmap) throws IOException {
+		data = Files.readAllBytes(beatmap.toPath());
+		lineEnd = 0;
+		//skip UTF-8 byte order mark
+		if (data.length>=3 && (data[0]&0xFF) == 0xEF && (data[1]&0xFF) == 0xBB && (data[2]&0xFF) == 0xBF) lineEnd = 3;
+	}
+
+	int section() {
+		//which section a [Section] header line starts
+		if (startsWith("[Metadata]")) return METADATA;
+		if (startsWith("[Difficulty]")) return DIFFICULTY;
+		if (startsWith("[Events]")) return EVENTS;
+		if (startsWith("[TimingPoints]")) return TIMINGPOINTS;
+		if (startsWith("[HitObjects]")) return HITOBJECTS;
+		return OTHER;
+	}
+
+	void readMetadata() {
+		if (startsWith("Title:")) {
+			pos+=6;
+			title = rest();
+		}
+		else if (startsWith("Artist:")) {
+			pos+=7;
+			artist = rest();
+		}
+		else if (startsWith("Version:")) {
+			pos+=8;
+			version = rest();
+		}
+	}
+
+	void readDifficulty() {
+		if (startsWith("HPDrainRate:")) {
+			pos+=12;
+			HP = nextNumber();
+		}
+		else if (startsWith("CircleSize:")) {
+			pos+=11;
+			CS = nextNumber();
+		}
+		else if (startsWith("OverallDifficulty:")) {
+			pos+=18;
+			OD = nextNumber();
+		}
+		else if (startsWith("ApproachRate:")) {
+			pos+=13;
+			AR = nextNumber();
+		}
+		else if (startsWith("SliderMultiplier:")) {
+			pos+=17;
+			SM = nextNumber();
+		}
+	}
+
+	ParsedBeatmap finish() {
+		//slider paths aren't built here, sliders keep their shape until they are about to be played
+		if (timeline == null) timeline = new TimingPointTimeline(timingPoints);
+		return new ParsedBeatmap(this);
+	}
+
+	void readHitObject() {
+		//x,y,time,type,hitSound,objectParams,...
+		int x = nextInt();
+		int y = nextInt();
+		int time = nextInt();
+		int type = nextInt();
+		skipField(); //hitsound
+
+		//spinner: ...,endTime,hitSample
+		if ((type & 8) != 0) {
+			addSpinner(time, nextInt());
+			return;
+		}
+		//circle: ...,hitSample
+		if ((type & 2) == 0) {
+			addCircle(x, y, time, type);
+			return;
+		}
+
+		//slider: ...,curveType|x:y|x:y,slides,length,...
+		char curve = (char)data[pos];
+		//count control points before reading them
+		int n = 1;
+		for (int i = pos; i<lineEnd && data[i]!=','; i++) {
+			if (data[i] == '|') n++;
+		}
+		int[][] points = new int[n][2];
+		points[0][0] = x;
+		points[0][1] = y;
+		pos+=2; //skip curve type and first |
+		for (int i = 1; i<n; i++) {
+			points[i][0] = nextInt();
+			points[i][1] = nextInt();
+		}
+		int slides = nextInt();
+		double length = nextNumber();
+		addSlider(curve, points, time, type, slides, length);
+	}
+
+	void addBreak(int start, int end) {
+		breaks.add(new int[] {start,end});
+	}
+
+	void addTimingPoint(int time, double beatL) {
+		timingPoints.add(new TimingPoint(time,beatL));
+		timeline = null;
+	}
+
+	void addSpinner(int time, int end) {
+		spinners.add(new int[] {time,end});
+		noteCombo = 0;
+		//endtime shifts to time of last note
+		if (end > endTime) endTime = end;
+	}
+
+	void addCircle(int x, int y, int time, int type) {
+		//visual combo
+		if (type == 1) {
+			noteCombo++;
+		} else {
+			noteCombo = 1;
+		}
+
+		//add circle, endtime
+		circles.add(new int[] {x*3/2,y*3/2,time,noteCombo});
+		if (time > endTime) endTime = time;
+	}
+
+	void addSlider(char curve, int[][] controlPoints, int time, int type, int slides, double length) {
+		//slider velocity calculation (data from file)
+		if (timeline == null) timeline = new TimingPointTimeline(timingPoints);
+		double beatLength = timeline.beatLengthAt(time);
+		double SV = timeline.multiplierAt(time);
+
+		//slider duration
+		double duration = length*beatLength/(SM*100*SV);
+
+		//note combo
+		if (type == 2) {
+			noteCombo++;
+		} else {
+			noteCombo = 1;
+		}
+
+		//add, endtime
+		sliders.add(new int[] {time,(int) Math.round(duration),slides,noteCombo});
+		shapes.add(new SliderShape(curve, controlPoints, length));
+		if (time+duration*slides > endTime) endTime = (int)(time+duration*slides);
+	}
+
+	// *** TOKENIZER
+
+	boolean nextLine() {
+		//move past the line break(s) of the previous line (also skips empty lines)
+		int i = lineEnd;
+		while (i<data.length && (data[i] == '\n' || data[i] == '\r')) i++;
+		if (i>=data.length) return false;
+		pos = i;
+		while (i<data.length && data[i] != '\n' && data[i] != '\r') i++;
+		lineEnd = i;
+		return true;
+	}
+
+	boolean startsWith(String s) {
+		if (pos+s.length()>lineEnd) return false;
+		for (int i = 0; i<s.length(); i++) {
+			if (data[pos+i] != s.charAt(i)) return false;
+		}
+		return true;
+	}
+
+	boolean contains(char c) {
+		for (int i = pos; i<lineEnd; i++) {
+			if (data[i] == c) return true;
+		}
+		return false;
+	}
+
+	String rest() {
+		//rest of the line as text (metadata can be unicode)
+		return new String(data, pos, lineEnd-pos, StandardCharsets.UTF_8).trim();
+	}
+
+	void skipField() {
+		while (pos<lineEnd && data[pos] != ',') pos++;
+		if (pos<lineEnd) pos++;
+	}
+
+	int nextInt() {
+		return (int)nextNumber();
+	}
+
+	double nextNumber() {
+		//reads a number and the separator after it (, : or |)
+		while (pos<lineEnd && data[pos] == ' ') pos++;
+		boolean negative = false;
+		if (pos<lineEnd && (data[pos] == '-' || data[pos] == '+')) {
+			negative = data[pos] == '-';
+			pos++;
+		}
+		long mantissa = 0;
+		int exp = 0; //power of 10 to apply to mantissa
+		while (pos<lineEnd && data[pos]>='0' && data[pos]<='9') {
+			if (mantissa<100000000000000000L) mantissa = mantissa*10+(data[pos]-'0');
+			else exp++;
+			pos++;
+		}
+		if (pos<lineEnd && data[pos] == '.') {
+			pos++;
+			while (pos<lineEnd && data[pos]>='0' && data[pos]<='9') {
+				if (mantissa<100000000000000000L) {
+					mantissa = mantissa*10+(data[pos]-'0');
+					exp--;
+				}
+				pos++;
+			}
+		}
+		if (pos<lineEnd && (data[pos] == 'E' || data[pos] == 'e')) {
+			pos++;
+			boolean negExp = false;
+			if (pos<lineEnd && (data[pos] == '-' || data[pos] == '+')) {
+				negExp = data[pos] == '-';
+				pos++;
+			}
+			int e = 0;
+			while (pos<lineEnd && data[pos]>='0' && data[pos]<='9') {
+				e = e*10+(data[pos]-'0');
+				pos++;
+			}
+			exp+= negExp ? -e : e;
+		}
+		while (pos<lineEnd && data[pos] == ' ') pos++;
+		if (pos<lineEnd) pos++; //separator
+
+		double value = mantissa;
+		if (exp<0) value = -exp<POW10.length ? value/POW10[-exp] : value/Math.pow(10,-exp);
+		if (exp>0) value = exp<POW10.length ? value*POW10[exp] : value*Math.pow(10,exp);
+		return negative ? -value : value;
+	}
+}
@@ -29,7 +29,8 @@ import java.awt.Color;
 import java.awt.Font;
 import java.awt.image.BufferedImage;
 import java.util.ArrayList;
-import java.util.Scanner;
+import java.util.Comparator;
+import java.util.concurrent.ForkJoinPool;
 
 import javax.sound.sampled.AudioInputStream;
 import javax.sound.sampled.AudioSystem;
@@ -38,12 +39,11 @@ import javax.sound.sampled.LineUnavailableException;
 import javax.sound.sampled.UnsupportedAudioFileException;
 
 import java.io.File;
-import java.io.FileNotFoundException;
 import java.io.IOException;
 
 public class OsuReader {
 	
-	public static void main(String[] args) throws FileNotFoundException {
+	public static void main(String[] args) throws IOException {
 		new OsuReader();
 	}
 	
@@ -65,9 +65,6 @@ public class OsuReader {
 	static double AR, OD, CS, HP, SM; //difficulty settings
 	int[]ARtime = new int[2]; //AR --> ms (appear/fade), useful
 	
-	double[] beatLength = new double[2]; //current beat length and slider speed multiplier
-	int beatTime = -1; //for single point slider multipliers, if this matches slider time apply multiplier
-	
 	long startTime; //map start time in system time
 	int endTime; //end time, # seconds after start
 	
@@ -80,8 +77,6 @@ public class OsuReader {
 	String songName = ""; //name of current song
 	
 	//mechanics
-	int noteCombo = 1; //VISUAL note combo (for player reading)
-	
 	boolean[] pressed = new boolean[5]; //S,D,Mice,Q - for keys to register only once when held
 	int[] clicks = new int[4]; //number of clicks from each input
 	
@@ -95,14 +90,32 @@ public class OsuReader {
 	
 	GraphicsConsole gc = new GraphicsConsole(WINX,WINY);
 	BufferedImage sprites = OsuClasses.loadImage("osuYM/spritesheet.png");
+	CircleSprites circleSprites = new CircleSprites(sprites); //circle faces, drawn once per map
+	static final Color CIRCLE = new Color(0,128,255); //circle colour
+	
+	LibraryIndex library = new LibraryIndex(new File("osuYM")); //every map in song select
+	static final int MENU_FRAME = 1000/60; //ms per song select frame
+	static final int FPS = 240; //most frames shown per second, each one as soon as it is drawn
+	MapPrefetcher prefetcher = new MapPrefetcher(new File("osuYM")); //loads the highlighted map in the background
+	LibrarySearch search = new LibrarySearch(); //type to filter song select
+	boolean sortByStars = false; //song select order, folder names if false
+	Thumbnails thumbnails = new Thumbnails(new File("osuYM")); //small backgrounds for song select
 	
-	//note lists
+	//note lists (every note of the play, finished notes are marked removed instead of taken out)
 	static ArrayList<HitCircle> circleList = new ArrayList<HitCircle>();
 	static ArrayList<Slider> sliderList = new ArrayList<Slider>();
 	static ArrayList<Spinner> spinnerList = new ArrayList<Spinner>();
+	//live parts of the note lists, everything that draws or judges notes only looks at these
+	ActiveWindow<HitObject> notes; //circles and sliders merged in time order (drawing)
+	ActiveWindow<HitCircle> activeCircles;
+	ActiveWindow<Slider> activeSliders;
+	ActiveWindow<Spinner> activeSpinners;
+	
+	//slider paths, built just before sliders fade in
+	static final int PATH_LOOKAHEAD = 1000; //ms
+	SliderPathLoader pathLoader;
 	
 	//data lists
-	static ArrayList<TimingPoint> pointList = new ArrayList<TimingPoint>();
 	static ArrayList<int[]> breakList = new ArrayList<int[]>();
 	static ArrayList<int[]> accList = new ArrayList<int[]>();
 	
@@ -119,8 +132,9 @@ public class OsuReader {
 	Font Arial28 = new Font("Arial Rounded MT Bold", Font.PLAIN, 28);
 	Font Arial36 = new Font("Arial Rounded MT Bold", Font.PLAIN, 36);
 	Font Arial48 = new Font("Arial Rounded MT Bold", Font.PLAIN, 48);
+	MenuRows menuRows = new MenuRows(WINX-600, 100, Arial36, Arial18, WINX, WINY); //song select rows and fade
 	
-	OsuReader() throws FileNotFoundException {
+	OsuReader() throws IOException {
 		setup(); //first time setup (gc stuff, load audio)
 		gameIntro(); //intro screen
 		
@@ -129,22 +143,23 @@ public class OsuReader {
 			boolean restart = false; //go to menu if true
 			drawMenu();
 			
-			//import current map files
-			File beatmap = new File("osuYM/"+map+"/map.osu");
-			BufferedImage bg = OsuClasses.loadImage("osuYM/"+map+"/bg.jpg");
+			//import current map files (only once, restarts reuse them), usually already loaded while it was highlighted
+			LoadedMap loaded = prefetcher.take(map);
+			ParsedBeatmap beatmap = loaded.beatmap;
+			BufferedImage bg = loaded.bg;
+			clip[0] = loaded.song; //null if song.wav is missing or can't be played, the map is then played without music
 			
 			//while loop so you can restart individual map
 			while (true) {
 				//set parameters and load notes
-				Scanner sc = new Scanner(beatmap);
-				setParameters(sc);
-				loadSound("osuYM/"+map+"/song.wav",0);
+				setParameters(beatmap);
 				
 				//start screen
 				gc.clear();
 				gc.setColor(Color.WHITE);
 				gc.setFont(Arial48);
 				gc.drawString("Press Q to Begin", WINX*5/14, WINY/2);
+				gc.publishFrame();
 				while (!gc.isKeyDown('Q')) {
 					gc.sleep(1);
 				}
@@ -157,19 +172,21 @@ public class OsuReader {
 				while (true) {
 					//start song ONCE
 					if (System.currentTimeMillis() >= startTime-50 && !songPlayed) {
-						clip[0].start();
+						if (clip[0] != null) clip[0].start();
 						songPlayed = true;
 					}
 					
 					//main graphics and mechanics
 					if(!paused) {
+						pathLoader.update(System.currentTimeMillis()-startTime, ARtime[0]);
+						updateWindows();
 						synchronized (gc) {
 							gc.clear();
 							drawGraphics(bg);
 							checkNotes();
 							checkMouse();
 							drawGui();
-							if (circleList.size()+sliderList.size()+spinnerList.size()==0) break; //leave loop when all notes have been played
+							if (activeCircles.done() && activeSliders.done() && activeSpinners.done()) break; //leave loop when all notes have been played
 						}
 					}
 					
@@ -178,6 +195,7 @@ public class OsuReader {
 					if (paused && (gc.isKeyDown('R') || gc.isKeyDown('T'))) break;
 					if (checkFail()) break;
 					
+					gc.publishFrame(); //hand the finished frame to the window (it never shows one half drawn)
 					gc.sleep(1);
 				}
 				
@@ -186,18 +204,25 @@ public class OsuReader {
 					playSound(5);
 					drawEndscreen(bg);
 				}
-				clip[0].close();
+				//rewind song for a restart
+				if (clip[0] != null) {
+					clip[0].stop();
+					clip[0].setFramePosition(0);
+				}
 				
 				//detect restart/menu
 				while(!gc.isKeyDown('R') && !gc.isKeyDown('T') && !paused) {
 					gc.sleep(1);
 				}
-				clip[1].stop();
-				clip[5].stop();
+				if (clip[1] != null) clip[1].stop();
+				if (clip[5] != null) clip[5].stop();
 				playSound(2);
 				if (gc.isKeyDown('T')) restart = true;
 				resetGlobals(); //reset all variables
-				if (restart) break; //go to menu loop
+				if (restart) {
+					if (clip[0] != null) clip[0].close();
+					break; //go to menu loop
+				}
 			}
 		}
 	}
@@ -211,6 +236,7 @@ public class OsuReader {
 		gc.enableMouseMotion();
 		gc.enableMouseWheel();
 		gc.setBackgroundColor(Color.BLACK);
+		gc.enableActiveRendering(FPS);
 		loadSound("osuYM/epicfail.wav",1); //fail sound
 		loadSound("osuYM/click.wav",2); //menu sound
 		loadSound("osuYM/click2.wav",3); //menu scroll sound
@@ -237,6 +263,7 @@ public class OsuReader {
 				gc.setColor(Color.WHITE);
 				gc.drawArc((WINX-ovalSize)/2,(WINY-ovalSize)/2, ovalSize, ovalSize,90,i*360/2500);
 			}
+			gc.publishFrame();
 			gc.sleep(1);
 		}
 		
@@ -273,6 +300,7 @@ public class OsuReader {
 					break;
 				}
 			}
+			gc.publishFrame();
 			gc.sleep(1);
 		}
 		
@@ -282,6 +310,7 @@ public class OsuReader {
 				gc.setColor(new Color(0,0,0,i));
 				gc.fillRect(0, 0, WINX, WINY);
 			}
+			gc.publishFrame();
 			gc.sleep(1);
 		}
 	}
@@ -290,11 +319,8 @@ public class OsuReader {
 		//reset for a fresh map
 		AR = OD = CS = HP = SM = startTime = endTime = combo = maxCombo = score = 0;
 		ARtime = new int[2];
-		beatLength = new double[2];
-		beatTime = -1;
 		hits = new int[4];
 		acc = 100;
-		noteCombo = 1;
 		health = 50;
 		pressed = new boolean[5];
 		clicks = new int[4];
@@ -303,30 +329,11 @@ public class OsuReader {
 		songName = "";
 		
 		//arraylists
-		for (int i = 0; i<circleList.size(); i++) {
-			circleList.remove(i);
-			i--;
-		}
-		for (int i = 0; i<sliderList.size(); i++) {
-			sliderList.remove(i);
-			i--;
-		}
-		for (int i = 0; i<spinnerList.size(); i++) {
-			spinnerList.remove(i);
-			i--;
-		}
-		for (int i = 0; i<pointList.size(); i++) {
-			pointList.remove(i);
-			i--;
-		}
-		for (int i = 0; i<breakList.size(); i++) {
-			breakList.remove(i);
-			i--;
-		}
-		for (int i = 0; i<accList.size(); i++) {
-			accList.remove(i);
-			i--;
-		}
+		circleList.clear();
+		sliderList.clear();
+		spinnerList.clear();
+		breakList.clear();
+		accList.clear();
 		
 		m1 = new Cursor(-200,-200,16);
 		m2 = new Cursor(-200,-200,128);
@@ -335,46 +342,76 @@ public class OsuReader {
 		gc.setFont(Arial18);
 	}
 	
-	void drawMenu() throws FileNotFoundException {
+	void drawMenu() {
 		//setup
-		if (!clip[6].isRunning()) playSound(6); //play intro song if you entered menu from map
+		if (clip[6] != null && !clip[6].isRunning()) playSound(6); //play intro song if you entered menu from map
 		noFail = false;
 		int pos = 0; //which map is currently selected
-		File list = new File("osuYM/list.txt"); //list of maps
-		ArrayList<String[]> mapsList = new ArrayList<String[]>();
-		Scanner text = new Scanner(list);
-		while (text.hasNextLine()) {
-			String[] a = text.nextLine().split(",");
-			mapsList.add(a);
-		}
-		boolean[] pressed = new boolean[3]; //local keys
+		library.open(); //maps from last time are shown straight away
+		library.refreshLater(); //and maps that changed since then are read in the background
+		boolean[] pressed = new boolean[4]; //local keys
+		//keys still held from the map count as already pressed, so they only do something once pressed again
+		pressed[0] = gc.isKeyDown(38);
+		pressed[1] = gc.isKeyDown(40);
+		pressed[2] = gc.isKeyDown('F');
+		pressed[3] = gc.isKeyDown('D');
+		long moved = System.currentTimeMillis(); //when the selection last changed
+		String query = ""; //search text
+		boolean searching = false; //typing goes into the search instead of the hotkeys
+		while (gc.hasChar()) gc.getChar(); //throw out whatever was typed during the last map
 		
 		//animation loop
 		while (true) {
+			long frame = System.currentTimeMillis();
+			//typed characters (S starts a search, enter stops typing, escape clears it)
+			String typed = query;
+			while (gc.hasChar()) {
+				char c = gc.getChar();
+				if (!searching) searching = c == 's' || c == 'S';
+				else if (c == '\n') searching = false;
+				else if (c == '\b') {
+					if (!query.isEmpty()) query = query.substring(0, query.length()-1);
+				}
+				else if (c>=' ') query+=c;
+			}
+			if (gc.isKeyDown(27)) {
+				query = "";
+				searching = false;
+			}
+			ArrayList<LibraryEntry> found = search.search(library.entries, query); //library can be swapped by the refresh
+			ArrayList<LibraryEntry> mapsList = sortByStars ? search.byStars(found) : found;
+			if (!query.equals(typed)) {
+				pos = 0;
+				moved = frame;
+				prefetcher.cancel();
+			}
+			if (pos>=mapsList.size()) pos = Math.max(0, mapsList.size()-1);
+			//start loading the highlighted map once the selection has stayed on it for a bit
+			if (!mapsList.isEmpty() && frame-moved>=MapPrefetcher.DELAY) prefetcher.prefetch(mapsList.get(pos).folder);
 			synchronized (gc) {
 				gc.clear();
 				
-				//MAPS
-				gc.setFont(Arial36);
-				for (int i = 0 ; i<mapsList.size(); i++) {
-					gc.setColor(Color.WHITE);
-					gc.setStroke(1);
-					gc.drawRect(100, WINY/2-50+(i-pos)*150, WINX-600, 100);
-					gc.drawString(mapsList.get(i)[0],120,WINY/2+(i-pos)*150+10);
+				//MAPS (only rows on screen, each one is drawn once and reused)
+				int rowsAround = (WINY/2+50)/150+1; //rows that fit above or below the selected one
+				for (int i = Math.max(0, pos-rowsAround); i<=Math.min(mapsList.size()-1, pos+rowsAround); i++) {
+					gc.drawImage(menuRows.row(mapsList.get(i)), 100, WINY/2-50+(i-pos)*150);
+					BufferedImage thumb = thumbnails.get(mapsList.get(i).folder); //null until it has been made
+					if (thumb != null) gc.drawImage(thumb, WINX-505-Thumbnails.WIDTH, WINY/2-45+(i-pos)*150);
 				}
+				//thumbnails just off screen start loading before they scroll in
+				for (int i = pos+rowsAround+1; i<=Math.min(mapsList.size()-1, pos+rowsAround+3); i++) thumbnails.get(mapsList.get(i).folder);
+				for (int i = Math.max(0, pos-rowsAround-3); i<pos-rowsAround; i++) thumbnails.get(mapsList.get(i).folder);
 				//selection box
 				gc.setStroke(5);
 				gc.setColor(Color.GREEN);
 				gc.drawRect(100,WINY/2-50,WINX-600,100);
 				
 				//other UI
-				gc.setColor(Color.BLACK);
-				gc.fillRect(0,0,WINX,WINY/6);
-				for (int i = 0; i<WINY/6; i++) {
-					gc.setColor(new Color(0,0,0,255-i*255*6/WINY));
-					gc.drawLine(0, i+WINY/6, WINX, i+WINY/6); //fade up top
-				}
+				gc.drawImage(menuRows.fade, 0, 0); //black bar and fade up top
 				gc.setColor(Color.WHITE);
+				//search
+				gc.setFont(Arial24);
+				if (searching || !query.isEmpty()) gc.drawString("Search: "+query+(searching ? "_" : "")+"  ("+mapsList.size()+" maps)", 100, 140);
 				//noFail indicator
 				gc.drawRect(WINX-100, WINY-100, 50, 50);
 				if (noFail) gc.fillRect(WINX-90, WINY-90, 30, 30);
@@ -382,9 +419,11 @@ public class OsuReader {
 				gc.setFont(Arial48);
 				gc.drawString("Song Select", 450, 100);
 				gc.setFont(Arial24);
+				gc.drawString("S to search (Esc to clear)", 845, 640);
 				gc.drawString("Arrow keys/scroll to navigate", 805, 700);
 				gc.drawString("W to select map", 965, 760);
 				gc.drawString("Toggle NoFail (F)", 865, 830);
+				gc.drawString(sortByStars ? "Sorted by stars (D)" : "Sorted by name (D)", 100, 830);
 				
 				//key detection
 				//UP ARROW 38 DOWN 40
@@ -394,104 +433,98 @@ public class OsuReader {
 					playSound(3);
 					pressed[0] = true;
 					if (pos>0) pos--;
+					moved = System.currentTimeMillis();
+					prefetcher.cancel(); //moved on, stop loading the old map
 				}
 				//scroll down
 				if ((gc.isKeyDown(40) && !pressed[1]) || p>0) {
 					playSound(3);
 					pressed[1] = true;
 					if (pos<mapsList.size()-1) pos++;
+					moved = System.currentTimeMillis();
+					prefetcher.cancel();
 				}
 				//toggle nofail
-				if (gc.isKeyDown('F') && !pressed[2]) {
+				if (gc.isKeyDown('F') && !pressed[2] && !searching) {
 					playSound(2);
 					pressed[2] = true;
 					noFail = !noFail;
 				}
+				//toggle sorting (same map stays selected)
+				if (gc.isKeyDown('D') && !pressed[3] && !searching) {
+					playSound(2);
+					pressed[3] = true;
+					LibraryEntry selected = mapsList.isEmpty() ? null : mapsList.get(pos);
+					sortByStars = !sortByStars;
+					mapsList = sortByStars ? search.byStars(found) : found; //same results, only the order changes
+					pos = Math.max(0, mapsList.indexOf(selected));
+				}
 				//keypresses
 				if (!gc.isKeyDown(38)) pressed[0] = false;
 				if (!gc.isKeyDown(40)) pressed[1] = false;
 				if (!gc.isKeyDown('F')) pressed[2] = false;
+				if (!gc.isKeyDown('D')) pressed[3] = false;
 				
 				//select map
-				if (gc.isKeyDown('W')) {
-					map = mapsList.get(pos)[1];
+				if (gc.isKeyDown('W') && !mapsList.isEmpty() && !searching) {
+					map = mapsList.get(pos).folder;
 					playSound(2);
 					break;
 				}
 			}
-			gc.sleep(1);
+			gc.publishFrame();
+			gc.sleep(Math.max(1, MENU_FRAME-(System.currentTimeMillis()-frame))); //the screen only updates 60 times a second anyway
 		}
 		//map has been selected
-		clip[6].stop();
+		if (clip[6] != null) clip[6].stop();
 		gc.clear();
 		gc.setFont(Arial48);
 		gc.drawString("Loading...", 500, WINY/2);
+		gc.publishFrame();
 	}
 
-	void setParameters(Scanner sc) {
-		//determines how far down the file currently
-		boolean events = false;
-		boolean timingPoints = false;
-		boolean hitObjects = false;
-		int[] ID = {0,0}; //circle,slider # (chronological)
-		
-		String text = "";
-		while (sc.hasNextLine()) {
-			text = sc.nextLine();
-			//checks lines for important information
-			if (text.contains("Title:")) {
-				String[] split = text.split(":");
-				songName+= split[1]+" - ";
-			}
-			if (text.contains("Artist:")) {
-				String[] split = text.split(":");
-				songName+= split[1];
-			}
-			if (HP ==0) HP = setDiff("HPDrainRate",text);
-			if (CS ==0) CS = setDiff("CircleSize",text);
-			if (OD ==0) OD = setDiff("OverallDifficulty",text);
-			if (AR ==0) AR = setDiff("ApproachRate",text);
-			if (SM ==0) SM = setDiff("SliderMultiplier",text);
-			if (text.contains("[Events]")) events = true;
-			if (text.contains("[TimingPoints]")) {
-				events = false;
-				timingPoints = true;
-			}
-			if (text.contains("[Colours]")) timingPoints = false;
-			if (text.contains("[HitObjects]")) hitObjects = true;
-			
-			//add to data lists
-			if (events) {
-				if (text.startsWith("2,") || text.startsWith("Break,")) {
-					String[] split = text.split(",");
-					breakList.add(new int[] {Integer.parseInt(split[1]),Integer.parseInt(split[2])});
-				}
-			}
-			
-			if (timingPoints) {
-				if (text.contains(",")) {
-					String[] split = text.split(",");
-					pointList.add(new TimingPoint(Integer.parseInt(split[0]),Double.parseDouble(split[1])));
-				}
-			}
-			
-			//add to note lists (check OsuClasses for what I'm adding)
-			if (hitObjects && text.contains(",")) {
-				String[] split = text.split(",");
-				//check if note isn't slider
-				if (!text.contains("B") && !text.contains("C") && !text.contains("L") && !text.contains("P")) {
-					//check if note is spinner
-					if (split.length>5 && !split[5].contains(":")) {
-						spinnerList.add(new Spinner(Integer.parseInt(split[2]),Integer.parseInt(split[5])));
-						noteCombo = 0;
-						//endtime shifts to time of last note
-						if (Integer.parseInt(split[5]) > endTime) endTime = Integer.parseInt(split[5]);
-					} else addCircle(split, ID);
-				} else addSlider(split, ID);
-			}
-		}
-		
+	static ParsedBeatmap loadBeatmap(File beatmap) throws IOException {
+		//cached map (already parsed and stacked), otherwise read the file and cache it
+		BeatmapCache cache = new BeatmapCache(beatmap);
+		ParsedBeatmap parsed = cache.load(beatmap);
+		if (parsed == null) {
+			parsed = new OsuParser().parse(beatmap);
+			cache.save(beatmap, parsed);
+		}
+		return parsed;
+	}
+	
+	void setParameters(ParsedBeatmap beatmap) {
+		//fresh notes and difficulty settings for a play
+		beatmap.stamp();
+		songName = beatmap.songName;
+		endTime = beatmap.endTime;
+		ARtime = getARtime(AR);
+		pathLoader = new SliderPathLoader(sliderList, ForkJoinPool.commonPool(), PATH_LOOKAHEAD);
+		
+		
+		//circles and sliders in one list by time, circles first when they tie (drawn on top)
+		ArrayList<HitObject> merged = new ArrayList<HitObject>(circleList);
+		merged.addAll(sliderList);
+		merged.sort(Comparator.comparingInt(a -> a.time)); //stable, ties keep circles first
+		notes = new ActiveWindow<HitObject>(merged, new HitObject[0]);
+		activeCircles = new ActiveWindow<HitCircle>(circleList, new HitCircle[0]);
+		activeSliders = new ActiveWindow<Slider>(sliderList, new Slider[0]);
+		activeSpinners = new ActiveWindow<Spinner>(spinnerList, new Spinner[0]);
+	}
+	
+	void updateWindows() {
+		//notes within fade in time appear, removed ones expire
+		long appear = System.currentTimeMillis()-startTime+ARtime[0];
+		notes.update(appear);
+		activeCircles.update(appear);
+		activeSliders.update(appear);
+		activeSpinners.update(appear);
+	}
+	
+	static int[] getARtime(double AR) {
 		//ARtime calculation
+		int[] ARtime = new int[2];
 		if (AR<=5) {
 			ARtime[0] = (int)(1200+600*(5-AR)/5);
 			ARtime[1] = (int)(800+400*(5-AR)/5);
@@ -500,198 +533,19 @@ public class OsuReader {
 			ARtime[0] = (int)(1200-750*(AR-5)/5);
 			ARtime[1] = (int)(800-500*(AR-5)/5);
 		}
-		
-		//stack mechanic: circles that are on top of each other are shifted a little for readability
-		for (int i = 0; i<circleList.size(); i++) {
-			int p = 0;
-			while (true) {
-				if (i+p+1>=circleList.size()) break;
-				//if 2 time-adjacent circles are at the same position and not too far apart in time, add to stack
-				if (circleList.get(i).x == circleList.get(i+p+1).x && circleList.get(i).y == circleList.get(i+p+1).y && circleList.get(i+p+1).time-circleList.get(i+p).time < ARtime[0]) {
-					p++;
-				}
-				else break;
-			}
-			//stack
-			while (p>0) {
-				for (int j = 0; j<p; j++) {
-					circleList.get(i+j).x-=5;
-					circleList.get(i+j).y-=5;
-				}
-				p--;
-			}
-		}
-	}
-	
-	double setDiff(String s, String text) {
-		//sets difficulty settings from file
-		if (text.contains(s)) {
-			String[] split = text.split(":");
-			return Double.parseDouble(split[1]);
-		}
-		return 0;
-	}
-	
-	void addCircle(String[] split, int[] ID) {
-		//visual combo
-		if (Integer.parseInt(split[3]) == 1) {
-			noteCombo++;
-		} else {
-			noteCombo = 1;
-		}
-		
-		//add circle, endtime, increment ID
-		circleList.add(new HitCircle(Integer.parseInt(split[0])*3/2,Integer.parseInt(split[1])*3/2,Integer.parseInt(split[2]),ID[0],noteCombo));
-		if (Integer.parseInt(split[2]) > endTime) endTime = Integer.parseInt(split[2]);
-		ID[0]++;
-	}
-	
-	void addSlider(String[] split, int[] ID) {
-		int[][] points = sliderPoints(split); //a lot of points to pinpoint where the slider is (complicated)
-		int time = Integer.parseInt(split[2]); //slider start time
-		
-		//slider velocity calculation (data from file)
-		double SV = 1;
-		for (int i = 0; i<pointList.size(); i++) {
-			if (pointList.size() == 0) break;
-			TimingPoint a = pointList.get(i);
-			//if a point's time has arrived, invoke its effects
-			if (a.time <= time) {
-				if (a.beatL>=0) beatLength[0] = a.beatL;
-				if (a.beatL<=0) {
-					beatLength[1] = a.beatL;
-					if (a.time == time) SV = -100/beatLength[1];
-				}
-				pointList.remove(i);
-				i--;
-			}
-		}
-		
-		//slider length and duration
-		double length = Double.parseDouble(split[7]);
-		double duration = length*beatLength[0]/(SM*100*SV);
-		
-		//note combo
-		if (Integer.parseInt(split[3]) == 2) {
-			noteCombo++;
-		} else {
-			noteCombo = 1;
-		}
-		
-		//add, endtime, id
-		sliderList.add(new Slider(points,time,(int) Math.round(duration),Integer.parseInt(split[6]),ID[1], noteCombo));
-		if (time+duration*Integer.parseInt(split[6]) > endTime) endTime = (int)(time+duration*Integer.parseInt(split[6]));
-		ID[1]++;
-	}
-	
-	int[][] sliderPoints(String[] s) {
-		//convert file data into positions
-		String[] sliderStuff = s[5].split("\\|");
-		int[][] points = new int[sliderStuff.length][2];
-		points[0][0] = Integer.parseInt(s[0])*3/2;
-		points[0][1] = Integer.parseInt(s[1])*3/2;
-		for (int i = 1; i<sliderStuff.length; i++) {
-			String[] point = sliderStuff[i].split(":");
-			points[i][0] = Integer.parseInt(point[0])*3/2;
-			points[i][1] = Integer.parseInt(point[1])*3/2;
-		}
-		
-		//turn positions into drawable points
-		int[][] positions = sliderCalc(points, (int) Math.round(Double.parseDouble(s[7])));
-		
-		return positions;
-	}
-	
-	int[][] sliderCalc(int[][] a, int b) {
-		//slider file data consists of bezier points, and subslider points
-		//subslider points splits sliders into individually bezier'ed sections
-		int[][][] sliders = new int[1000][a.length][2]; //[section][#bezier point][x or y]
-		for (int i = 0; i<sliders.length; i++) {
-			for (int j = 0; j<sliders[i].length; j++) {
-				for (int k = 0; k<sliders[i][j].length; k++) {
-					sliders[i][j][k] = -6969; //placeholder number because 0 cannot be
-				}
-			}
-		}
-		int sliderNum = 0; //subslider
-		int sliderLoc = 0; //#bezier point
-		//add to array
-		for (int i = 0; i<a.length-1; i++) {
-			sliders[sliderNum][sliderLoc] = a[i];
-			sliderLoc++;
-			if (a[i][0] == a[i+1][0] && a[i][1] == a[i+1][1]) {
-				sliderNum++;
-				sliderLoc = 0;
-			}
-		}
-		sliders[sliderNum][sliderLoc] = a[a.length-1]; //final point
-		double[] distance = new double[sliderNum+1]; //distance for each subsection
-		double totalDistance = 0; //total distance
-		//calculate distance with pythagorean
-		for (int i = 0; i<=sliderNum; i++) {
-			int[] p1 = sliders[i][0]; //first point
-			int[] p2 = {0,0}; //second point, last point of subslider
-			for (int j = 0; j<sliders[i].length; j++) {
-				if (sliders[i][j][0] == -6969) break;
-				p2 = sliders[i][j];
-			}
-			distance[i] = (Math.sqrt(Math.pow((p2[0]-p1[0]),2)+Math.pow((p2[1]-p1[1]),2)));
-			totalDistance+=distance[i];
-		}
-		
-		//calculate a bunch of points to be drawn
-		int[][] points = new int[b][2];
-		int k = 0;
-		//for each subsection
-		for (int i = 0; i<=sliderNum; i++) {
-			int numPoints = (int)(distance[i]*b/totalDistance);
-			int bezierNum = 0; //degree of bezier curve
-			for (int j = 0; j<a.length; j++) {
-				if (sliders[i][j][0] !=-6969) bezierNum++;
-			}
-			for (int j = 0 ; j < numPoints; j++) {
-				int[] point = sliderCalc2(sliders[i], numPoints, bezierNum, j);
-				points[k] = point;
-				k++;
-			}
-			
-		}
-		
-		return points;
+		return ARtime;
 	}
 	
-	int[] sliderCalc2(int[][]a, int points, int num, int cPoint) {
-		int[][] b = new int[num][2];
-		double c = (double)cPoint/points; //which point in section (ratio of where it should be drawn)
-		int[][] d = new int[num-1][2];
-		
-		for (int i = 0; i<b.length; i++) {
-			b[i] = a[i];
-		}
-		
-		//bezier calculation
-		for (int i = 0; i<d.length; i++) {
-			d[i][0] = b[i][0] + (int)((b[i+1][0]-b[i][0])*c);
-			d[i][1] = b[i][1] + (int)((b[i+1][1]-b[i][1])*c);
-		}
-		if (num > 2) {
-			return sliderCalc2(d, points, num-1, cPoint); //recursive until bezier degree is 0 (real points)
-		}
-		
-		return d[0];
-	}
-
 	void drawGraphics(BufferedImage bg) {
 		//background
 		float bgalpha = checkBreak();
 		gc.drawImage(bg,0, 0, WINX, WINY,bgalpha);
 		
 		//Draw spinners
-		for (int i = 0; i<spinnerList.size(); i++) {
-			if (spinnerList.size() == 0) break;
-			Spinner a = spinnerList.get(i);
-			//if on time, draw
-			if (a.time+startTime <= System.currentTimeMillis()+ARtime[0]) {
+		for (int i = activeSpinners.head; i<activeSpinners.tail; i++) {
+			Spinner a = activeSpinners.notes[i];
+			//if on time and not removed yet, draw
+			if (!a.removed) {
 				//change alpha for fade
 				int alpha = 0;
 				if (a.state == 4) {
@@ -716,55 +570,12 @@ public class OsuReader {
 			}
 		}
 		
-		//Circles and sliders: must draw in order so temp arraylist
-		ArrayList<HitObject> toDraw = new ArrayList<HitObject>();
-		//put only everything THAT IS ON SCREEN RIGHT NOW into list
-		for (int i = 0; i<sliderList.size(); i++) {
-			if (sliderList.size() == 0) break;
-			Slider a = sliderList.get(i);
-			if (a.time+startTime <= System.currentTimeMillis()+ARtime[0]) {
-				toDraw.add(new HitObject(a.time, a.type, a.ID));
-			}
-		}
-		for (int i = 0; i<circleList.size(); i++) {
-			if (circleList.size() == 0) break;
-			HitCircle a = circleList.get(i);
-			if (a.time+startTime <= System.currentTimeMillis()+ARtime[0]) {
-				toDraw.add(new HitObject(a.time, a.type, a.ID));
-			}
-		}
-		
-		//draw everything in order
-		if (toDraw.size()>0) {
-			//keep drawing until all the notes are drawn
-			for (int i = 0; i<toDraw.size(); i++) {
-				int[] highest = {-1,-1}; //find last note, draw first (so it's on the bottom)
-				for (int j = 0; j<toDraw.size(); j++) {
-					if (toDraw.get(j).time > highest[0]) {
-						highest[0] = toDraw.get(j).time;
-						highest[1] = j;
-					}
-				}
-				//if circle
-				if (toDraw.get(highest[1]).type == 0) {
-					for (int j = 0; j<circleList.size(); j++) {
-						if (toDraw.get(highest[1]).ID == circleList.get(j).ID) {
-							drawCircle(circleList.get(j));
-							break;
-						}
-					}
-				}
-				//if slider
-				if (toDraw.get(highest[1]).type == 1) {
-					for (int j = 0; j<sliderList.size(); j++) {
-						if (toDraw.get(highest[1]).ID == sliderList.get(j).ID) {
-							drawSlider(sliderList.get(j));
-							break;
-						}
-					}
-				}
-				toDraw.get(highest[1]).time=-1; //change note time to avoid interfering with later notes
-			}
+		//Circles and sliders: the window of notes that can be on screen, walked backwards so later notes end up on the bottom
+		for (int i = notes.tail-1; i>=notes.head; i--) {
+			HitObject a = notes.notes[i];
+			if (a.removed) continue; //long sliders can outlast notes after them
+			if (a.type == 0) drawCircle((HitCircle) a);
+			else drawSlider((Slider) a);
 		}
 	}
 	
@@ -817,25 +628,12 @@ public class OsuReader {
 			}
 			if (alpha<0) alpha = 0;
 		}
-		//main circle
-		gc.setColor(new Color(0,128,255,alpha));
-		gc.setStroke(5);
-		gc.fillOval(a.x+bufferX,a.y+bufferY,a.width, a.height);
-		gc.setColor(new Color(255,255,255,alpha));
-		gc.setStroke(5);
-		gc.drawOval(a.x+bufferX,a.y+bufferY,a.width, a.height);
-		
-		//visual combo
-		float alpha2 = alpha/192f;
-		if (a.combo<10) {
-			gc.drawImage(sprites,a.x+bufferX,a.y+bufferY,a.x+bufferX+a.width,a.y+bufferY+a.height,128*a.combo,64,128+128*a.combo,192,alpha2,null);
-		}
-		if (a.combo>=10) {
-			int ones = a.combo%10;
-			int tens = (a.combo%100)/10;
-			gc.drawImage(sprites,a.x+bufferX,a.y+bufferY+a.height/8,a.x+bufferX+a.width*3/4,a.y+bufferY+a.height*7/8,128*tens,64,128+128*tens,192,alpha2,null);
-			gc.drawImage(sprites,a.x+bufferX+a.width*1/4,a.y+bufferY+a.height/8,a.x+bufferX+a.width,a.y+bufferY+a.height*7/8,128*ones,64,128+128*ones,192,alpha2,null);
-		}
+		//main circle and visual combo (one image per combo number, stretched while a hit circle grows)
+		int size = (int)(54.4-4.48*CS)*3;
+		BufferedImage face = circleSprites.face(size, a.combo, CIRCLE);
+		int pad = CircleSprites.PAD*a.width/size;
+		if (a.width == size) gc.drawImage(face, a.x+bufferX-pad, a.y+bufferY-pad, alpha/192f);
+		else gc.drawImage(face, a.x+bufferX-pad, a.y+bufferY-pad, a.width+pad*2, a.height+pad*2, alpha/192f);
 		
 		//approach circle
 		if (a.time+startTime >= System.currentTimeMillis()) {
@@ -866,83 +664,47 @@ public class OsuReader {
 			if (alpha>192) alpha = 192;
 		}
 		gc.setStroke(1);
-		int[] endPoint = new int[2]; //slider endpoint (useful)
-		for (int j = a.points.length-1; j>=0; j--) {
-			endPoint[0] = a.points[j][0];
-			endPoint[1] = a.points[j][1];
-			if (endPoint[0] != 0 || endPoint[1] != 0) break;
-		}
+		pathLoader.build(a); //only builds if the background worker hasn't finished it yet
+		int[] endPoint = a.points[a.points.length-1]; //slider endpoint (useful)
 		
-		int curPoint = 0; //current progress in slider
 		gc.setColor(new Color(255,0,0,alpha));
 		/* current direction for repeat sliders is determined by a.direction
 		 * remaining repeats is determined by a.tempslides
 		 */
-		if (!a.direction && a.tempslides>0) {
-			curPoint = (int)((System.currentTimeMillis()-a.time-startTime-a.duration*(a.slides-a.tempslides))*a.points.length/a.duration);
-			if (a.tempslides>1) {
-				gc.fillOval(endPoint[0]-4+bufferX,endPoint[1]-4+bufferY,a.width+8, a.height+8); //bumps for repeat sliders
-			}
+		if (!a.direction && a.tempslides>1) {
+			gc.fillOval(endPoint[0]-4+bufferX,endPoint[1]-4+bufferY,a.width+8, a.height+8); //bumps for repeat sliders
 		}
-		if (a.direction && a.tempslides>0) {
-			curPoint = (int)((a.points.length-1)-((System.currentTimeMillis()-a.time-startTime-a.duration*(a.slides-a.tempslides))*a.points.length/a.duration));
-			if (a.tempslides>1) {
-				gc.fillOval(a.points[0][0]-4+bufferX,a.points[0][1]-4+bufferY,a.width+8, a.height+8); //bumps for repeat sliders
-			}
+		if (a.direction && a.tempslides>1) {
+			gc.fillOval(a.points[0][0]-4+bufferX,a.points[0][1]-4+bufferY,a.width+8, a.height+8); //bumps for repeat sliders
 		}
 		
-		//main slider body (drawing many points)
-		gc.setColor(new Color(0,128,255,alpha/4));
-		for (int j = 0; j<a.points.length; j+=4) {
-			if (a.points[j][0] == 0 && a.points[j][1] == 0) continue; //invalid points, don't draw
-			gc.fillOval(a.points[j][0]+bufferX,a.points[j][1]+bufferY,a.width, a.height);
-		}
+		//main slider body (many points, already drawn into an image at full alpha)
+		gc.drawImage(a.body, a.bodyX+bufferX, a.bodyY+bufferY, alpha/192f);
 		
 		//"circle" outline at start of slider, and visual combo
 		gc.setStroke(5);
 		gc.setColor(new Color(255,255,255,alpha));
 		if (System.currentTimeMillis()<a.time+startTime) {
-			if (a.x!= 0 || a.y!= 0) {
-				gc.drawOval(a.points[0][0]+bufferX,a.points[0][1]+bufferY,a.width,a.height);
-				gc.setColor(new Color(0,128,255,alpha));
-				gc.fillOval(a.points[0][0]+bufferX,a.points[0][1]+bufferY,a.width,a.height);
-				gc.setColor(new Color(255,255,255,alpha));
-				float alpha2 = alpha/192f;
-				if (a.combo<10) {
-					gc.drawImage(sprites,a.x+bufferX,a.y+bufferY,a.x+bufferX+a.width,a.y+bufferY+a.height,128*a.combo,64,128+128*a.combo,192,alpha2,null);
-				}
-				if (a.combo>=10) {
-					int ones = a.combo%10;
-					int tens = (a.combo%100)/10;
-					gc.drawImage(sprites,a.x+bufferX,a.y+bufferY+a.height/8,a.x+bufferX+a.width*3/4,a.y+bufferY+a.height*7/8,128*tens,64,128+128*tens,192,alpha2,null);
-					gc.drawImage(sprites,a.x+bufferX+a.width*1/4,a.y+bufferY+a.height/8,a.x+bufferX+a.width,a.y+bufferY+a.height*7/8,128*ones,64,128+128*ones,192,alpha2,null);
-				}
-				//for every frame slider is on screen, touched[1] is increased
-				if (a.time+a.duration*a.slides+startTime>System.currentTimeMillis()) a.touched[1]++;
-			}
+			//same face as a circle
+			BufferedImage face = circleSprites.face(a.width, a.combo, CIRCLE);
+			gc.drawImage(face, a.points[0][0]+bufferX-CircleSprites.PAD, a.points[0][1]+bufferY-CircleSprites.PAD, alpha/192f);
+			//for every frame slider is on screen, touched[1] is increased
+			if (a.time+a.duration*a.slides+startTime>System.currentTimeMillis()) a.touched[1]++;
 		}
 		gc.setStroke(5);
 		
-		if (a.time+a.duration*a.slides+startTime<=System.currentTimeMillis()) {
-			curPoint = 10000; //placeholder number, stops curPoint updating when slider is done
-		}
-		
-		//find point with current slider progress
-		if (curPoint>0) {
-			if (!a.direction) {
-				a.x = endPoint[0];
-				a.y = endPoint[1];
-			}
-			if (a.direction) {
-				a.x = a.points[0][0];
-				a.y = a.points[0][1];
-			}
-				
-			if (curPoint<a.points.length-1) {
-				a.x = a.points[curPoint][0];
-				a.y = a.points[curPoint][1];
+		//current slider progress: how many slides are done, every other slide goes backwards
+		double progress = a.duration>0 ? (System.currentTimeMillis()-a.time-startTime)/(double)a.duration : a.slides;
+		if (progress>0) {
+			if (progress>a.slides) progress = a.slides;
+			int slide = (int)progress;
+			double along = progress-slide; //progress in the current slide
+			if (slide == a.slides) {
+				slide--;
+				along = 1;
 			}
-			if (a.x!= 0 || a.y!= 0) gc.drawOval(a.x+bufferX, a.y+bufferY, a.width, a.height); //draw moving circle
+			a.positionAt(slide%2 == 0 ? along : 1-along);
+			gc.drawOval(a.x+bufferX, a.y+bufferY, a.width, a.height); //draw moving circle
 		}
 		
 		//approach circle
@@ -971,9 +733,9 @@ public class OsuReader {
 		//handles accuracy and deletion of finished notes from arraylist
 		
 		//spinners
-		for (int i = spinnerList.size()-1; i>=0; i--) {
-			if (spinnerList.size() == 0) break;
-			Spinner a = spinnerList.get(i);
+		for (int i = activeSpinners.tail-1; i>=activeSpinners.head; i--) {
+			Spinner a = activeSpinners.notes[i];
+			if (a.removed) continue;
 			//if spinner has finished
 			if (a.endTime+startTime<=System.currentTimeMillis()-150 && !a.finished) {
 				//find accuracy based on spinner progress
@@ -997,15 +759,14 @@ public class OsuReader {
 			}
 			//delete object after it has fully faded
 			if (a.endTime+startTime<=System.currentTimeMillis()-650) {
-				spinnerList.remove(i);
-				i++;
+				a.removed = true;
 			}
 		}
 		
 		//sliders
-		for (int i = sliderList.size()-1; i>=0; i--) {
-			if (sliderList.size() == 0) break;
-			Slider a = sliderList.get(i);
+		for (int i = activeSliders.tail-1; i>=activeSliders.head; i--) {
+			Slider a = activeSliders.notes[i];
+			if (a.removed) continue;
 			//if slider has commenced
 			if (a.time+startTime<=System.currentTimeMillis()-25-(200-10*OD)) {
 				//checks for slider break (lack of click)
@@ -1037,15 +798,16 @@ public class OsuReader {
 				a.finished = true;
 			}
 			if (a.time+a.duration*a.slides+startTime<=System.currentTimeMillis()-650) {
-				sliderList.remove(i);
-				i++;
+				a.points = null; //faded out, path and body aren't needed anymore
+				a.body = null;
+				a.removed = true;
 			}
 		}
 		
 		//circles (accuracy calculation can be done right at the click, so it's in the mouse method)
-		for (int i = circleList.size()-1; i>=0; i--) {
-			if (circleList.size() == 0) break;
-			HitCircle a = circleList.get(i);
+		for (int i = activeCircles.tail-1; i>=activeCircles.head; i--) {
+			HitCircle a = activeCircles.notes[i];
+			if (a.removed) continue;
 			//if circle has been on screen for a while
 			if (a.time+startTime<=System.currentTimeMillis()-25-(200-10*OD)) {
 				//if not clicked, miss
@@ -1057,8 +819,7 @@ public class OsuReader {
 				}
 			}
 			if (a.time+startTime<=System.currentTimeMillis()-(700-10*OD)) {
-				circleList.remove(i);
-				i++;
+				a.removed = true;
 			}
 		}
 		
@@ -1143,9 +904,9 @@ public class OsuReader {
 		//holding functionalities
 		if (gc.isKeyDown(key1) || gc.isKeyDown(key2) || gc.getMouseButton(0) || gc.getMouseButton(2)) {
 			//if key is held and cursor satisfies slider position, increment a.touched[0]
-			for (int i = 0; i<sliderList.size(); i++) {
-				Slider a = sliderList.get(i);
-				if (m2.intersects(a) && a.time+startTime<=System.currentTimeMillis()+(200-10*OD)) {
+			for (int i = activeSliders.head; i<activeSliders.tail; i++) {
+				Slider a = activeSliders.notes[i];
+				if (!a.removed && m2.intersects(a) && a.time+startTime<=System.currentTimeMillis()+(200-10*OD)) {
 					a.touched[0]++;
 				}
 			}
@@ -1171,9 +932,9 @@ public class OsuReader {
 			if (angle[1]>270 && angle[0]<90) theta+=360;
 			
 			//calculate spins
-			for (int i = 0; i<spinnerList.size(); i++) {
-				Spinner a = spinnerList.get(i);
-				if (a.time+startTime <= System.currentTimeMillis()+ARtime[0] && a.state == 4) {
+			for (int i = activeSpinners.head; i<activeSpinners.tail; i++) {
+				Spinner a = activeSpinners.notes[i];
+				if (!a.removed && a.state == 4) {
 					a.dT+=(int)theta;
 					if (Math.abs(a.dT)>=360) {
 						a.dT = 0;
@@ -1218,6 +979,7 @@ public class OsuReader {
 		char k2 = (char)key2;
 		gc.drawString(k1+","+k2+",Mouse to Tap", WINX-165, 170); //controls
 		gc.drawString("Q to Pause", WINX-105, 200);
+		if (gc.getFrameTime()>0) gc.drawString(String.format("%.0ffps %.1fms", 1000/gc.getFrameTime(), gc.getFrameTimeMax()), WINX-165, WINY-20); //frame rate, longest frame
 		
 		gc.setStroke(3);
 		gc.drawLine(WINX-225, 65, WINX-10, 65);
@@ -1278,12 +1040,12 @@ public class OsuReader {
 	}
 	
 	void registerCircleClick(int a, boolean[] b) {
-		//check all circles
-		for (int i = 0; i<circleList.size(); i++) {
+		//check all circles on screen
+		for (int i = activeCircles.head; i<activeCircles.tail; i++) {
 			if (b[a]) break; //if tap has already hit a circle or spinner
-			HitCircle c = circleList.get(i);
+			HitCircle c = activeCircles.notes[i];
 			//if mouse is on circle, circle is not tapped yet, and in time window
-			if (m1.intersects(c) && c.state == 4 && c.time+startTime<=System.currentTimeMillis()-25+(200-10*OD)) {
+			if (!c.removed && m1.intersects(c) && c.state == 4 && c.time+startTime<=System.currentTimeMillis()-25+(200-10*OD)) {
 				//check for each time window (50 then 100 then 300)
 				if (Math.abs(System.currentTimeMillis()-25-c.time-startTime)>(140-8*OD)) {
 					c.state = 1;
@@ -1322,11 +1084,11 @@ public class OsuReader {
 	
 	void registerSliderClick(int a, boolean[] b) {
 		//similar to circles
-		for (int i = 0; i<sliderList.size(); i++) {
+		for (int i = activeSliders.head; i<activeSliders.tail; i++) {
 			if (b[a]) break;
-			Slider c = sliderList.get(i);
+			Slider c = activeSliders.notes[i];
 			//sliders just need to be tapped in the time window for good starting accuracy
-			if (m1.intersects(c) && c.state == 4 && c.time+startTime<=System.currentTimeMillis()-25+(200-10*OD)) {
+			if (!c.removed && m1.intersects(c) && c.state == 4 && c.time+startTime<=System.currentTimeMillis()-25+(200-10*OD)) {
 				c.state = 3;
 				combo++;
 				
@@ -1349,7 +1111,7 @@ public class OsuReader {
 		//pause
 		if (songPlayed && gc.isKeyDown('Q') && !pressed[4] && !paused) {
 			pauseTime = System.currentTimeMillis(); //save current time
-			clip[0].stop(); //stop music
+			if (clip[0] != null) clip[0].stop(); //stop music
 			pressed[4] = true;
 			paused = true; //disables graphics from updating
 			playSound(2);
@@ -1361,6 +1123,7 @@ public class OsuReader {
 				gc.setColor(new Color(0,64,255,2));
 				gc.fillRect(0, 0, WINX, i*WINY/150);
 				gc.fillRect(0, WINY-i*WINY/150, WINX, i*WINY/150);
+				gc.publishFrame();
 				gc.sleep(1);
 			}
 			//text
@@ -1374,6 +1137,7 @@ public class OsuReader {
 				gc.drawString("Game Paused", WINX*9/25, WINY*3/10);
 				gc.drawString("R to Restart", WINX*9/25, WINY*1/2);
 				gc.drawString("T for Menu", WINX*9/25, WINY*7/10);
+				gc.publishFrame();
 				gc.sleep(1);
 			}
 		}
@@ -1384,8 +1148,10 @@ public class OsuReader {
 			paused = false;
 			startTime+=System.currentTimeMillis()-pauseTime; //update starttime so all notes still work
 			playSound(2);
-			clip[0].setMicrosecondPosition((System.currentTimeMillis()-startTime)*1000); //set clip to time at pause
-			clip[0].start();
+			if (clip[0] != null) {
+				clip[0].setMicrosecondPosition((System.currentTimeMillis()-startTime)*1000); //set clip to time at pause
+				clip[0].start();
+			}
 		}
 		
 		if (!gc.isKeyDown('Q')) pressed[4] = false;
@@ -1393,7 +1159,7 @@ public class OsuReader {
 	
 	boolean checkFail() {
 		if (health<=0) {
-			clip[0].stop();
+			if (clip[0] != null) clip[0].stop();
 			playSound(1); //fail sound effect
 			ded = true;
 			
@@ -1404,6 +1170,7 @@ public class OsuReader {
 				gc.setColor(new Color(255,0,0,2));
 				gc.fillRect(0, 0, WINX, i*WINY/150);
 				gc.fillRect(0, WINY-i*WINY/150, WINX, i*WINY/150);
+				gc.publishFrame();
 				gc.sleep(1);
 			}
 			//text
@@ -1417,6 +1184,7 @@ public class OsuReader {
 				gc.drawString("You Failed...", WINX*9/25, WINY*3/10);
 				gc.drawString("Try Again? (R)", WINX*9/25, WINY*1/2);
 				gc.drawString("Back to Menu (T)", WINX*9/25, WINY*7/10);
+				gc.publishFrame();
 				gc.sleep(1);
 			}
 			
@@ -1435,6 +1203,7 @@ public class OsuReader {
 		for (int i = 0; i<128; i+=2) {
 			gc.setColor(new Color(0,0,0,i));
 			gc.fillRect(0,0,WINX,WINY);
+			gc.publishFrame();
 			gc.sleep(1);
 		}
 		
@@ -1491,6 +1260,7 @@ public class OsuReader {
 				gc.setColor(new Color(0,0,0,i));
 				gc.fillRect(0, 0, WINX, WINY);
 			}
+			gc.publishFrame();
 			gc.sleep(1);
 		}
 	}
@@ -1542,18 +1312,26 @@ public class OsuReader {
 		}
 	
 	void loadSound(String soundName, int i) {
+		clip[i] = openClip(soundName);
+	}
+	
+	static Clip openClip(String soundName) {
+		//whole sound decoded into a clip, null if it couldn't be
 		try {
 			AudioInputStream audioInputStream = AudioSystem.getAudioInputStream(new File(soundName).getAbsoluteFile());
-			clip[i] = AudioSystem.getClip();
-			clip[i].open(audioInputStream);
-		} catch(UnsupportedAudioFileException | IOException | LineUnavailableException ex) {
+			Clip clip = AudioSystem.getClip();
+			clip.open(audioInputStream);
+			return clip;
+		} catch(UnsupportedAudioFileException | IOException | LineUnavailableException | IllegalArgumentException ex) {
 			System.out.println("Error with playing sound.");
 			ex.printStackTrace( );
+			return null;
 		}
 	}
 	
 	void playSound(int i) {
 		//*if currently playing, stop and restart
+		if (clip[i] == null) return; //sound couldn't be loaded
 		clip[i].stop();
 		gc.sleep(1);
 		clip[i].setMicrosecondPosition(0);
@@ -0,0 +1,269 @@
+/* osu! parsed beatmap
+ * Everything read from a map file, stored once and never changed
+ * Playing (or restarting) a map stamps fresh notes out of this instead of reading the file again
+ * Sliders are kept as their shape, paths are only built while they are on screen (SliderPathLoader)
+ */
+
+package osu;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+final class ParsedBeatmap {
+	//info and difficulty settings
+	final String songName;
+	final int endTime;
+	final double AR, OD, CS, HP, SM;
+
+	//notes, each as parallel arrays in chronological order (positions are already scaled and stacked)
+	final int[] circleX, circleY, circleTime, circleCombo;
+	final int[] sliderTime, sliderDuration, sliderSlides, sliderCombo;
+	final int[] sliderStack; //how far each slider is shifted by stacking, in pixels
+	final SliderShape[] sliderShapes; //shared with every Slider stamped out, must not be changed
+	final int[] spinnerTime, spinnerEnd;
+
+	//data
+	final TimingPointTimeline timeline; //timing points
+	final int[][] breaks; //start,end
+
+	ParsedBeatmap(OsuParser p) {
+		songName = p.title+" - "+p.artist;
+		endTime = p.endTime;
+		AR = p.AR;
+		OD = p.OD;
+		CS = p.CS;
+		HP = p.HP;
+		SM = p.SM;
+
+		int n = p.circles.size();
+		circleX = new int[n];
+		circleY = new int[n];
+		circleTime = new int[n];
+		circleCombo = new int[n];
+		for (int i = 0; i<n; i++) {
+			int[] a = p.circles.get(i);
+			circleX[i] = a[0];
+			circleY[i] = a[1];
+			circleTime[i] = a[2];
+			circleCombo[i] = a[3];
+		}
+
+		n = p.sliders.size();
+		sliderTime = new int[n];
+		sliderDuration = new int[n];
+		sliderSlides = new int[n];
+		sliderCombo = new int[n];
+		sliderStack = new int[n];
+		sliderShapes = p.shapes.toArray(new SliderShape[0]);
+		for (int i = 0; i<n; i++) {
+			int[] a = p.sliders.get(i);
+			sliderTime[i] = a[0];
+			sliderDuration[i] = a[1];
+			sliderSlides[i] = a[2];
+			sliderCombo[i] = a[3];
+		}
+
+		n = p.spinners.size();
+		spinnerTime = new int[n];
+		spinnerEnd = new int[n];
+		for (int i = 0; i<n; i++) {
+			spinnerTime[i] = p.spinners.get(i)[0];
+			spinnerEnd[i] = p.spinners.get(i)[1];
+		}
+
+		timeline = p.timeline;
+
+		breaks = p.breaks.toArray(new int[0][]);
+
+		stack(OsuReader.getARtime(AR)[0]);
+	}
+
+	ParsedBeatmap(ByteBuffer b) {
+		//read back what write() wrote
+		AR = b.getDouble();
+		OD = b.getDouble();
+		CS = b.getDouble();
+		HP = b.getDouble();
+		SM = b.getDouble();
+		endTime = b.getInt();
+		byte[] name = new byte[b.getInt()];
+		b.get(name);
+		songName = new String(name, StandardCharsets.UTF_8);
+
+		int n = b.getInt();
+		circleX = new int[n];
+		circleY = new int[n];
+		circleTime = new int[n];
+		circleCombo = new int[n];
+		for (int i = 0; i<n; i++) {
+			circleX[i] = b.getInt();
+			circleY[i] = b.getInt();
+			circleTime[i] = b.getInt();
+			circleCombo[i] = b.getInt();
+		}
+
+		n = b.getInt();
+		sliderTime = new int[n];
+		sliderDuration = new int[n];
+		sliderSlides = new int[n];
+		sliderCombo = new int[n];
+		sliderStack = new int[n];
+		sliderShapes = new SliderShape[n];
+		for (int i = 0; i<n; i++) {
+			sliderTime[i] = b.getInt();
+			sliderDuration[i] = b.getInt();
+			sliderSlides[i] = b.getInt();
+			sliderCombo[i] = b.getInt();
+			sliderStack[i] = b.getInt();
+			char curve = b.getChar();
+			int[][] controlPoints = new int[b.getInt()][2];
+			for (int j = 0; j<controlPoints.length; j++) {
+				controlPoints[j][0] = b.getInt();
+				controlPoints[j][1] = b.getInt();
+			}
+			sliderShapes[i] = new SliderShape(curve, controlPoints, b.getDouble());
+		}
+
+		n = b.getInt();
+		spinnerTime = new int[n];
+		spinnerEnd = new int[n];
+		for (int i = 0; i<n; i++) {
+			spinnerTime[i] = b.getInt();
+			spinnerEnd[i] = b.getInt();
+		}
+
+		n = b.getInt();
+		int[] pointTime = new int[n];
+		double[] beatLength = new double[n];
+		double[] multiplier = new double[n];
+		for (int i = 0; i<n; i++) {
+			pointTime[i] = b.getInt();
+			beatLength[i] = b.getDouble();
+			multiplier[i] = b.getDouble();
+		}
+		timeline = new TimingPointTimeline(pointTime, beatLength, multiplier);
+
+		breaks = new int[b.getInt()][2];
+		for (int i = 0; i<breaks.length; i++) {
+			breaks[i][0] = b.getInt();
+			breaks[i][1] = b.getInt();
+		}
+	}
+
+	void write(DataOutputStream out) throws IOException {
+		out.writeDouble(AR);
+		out.writeDouble(OD);
+		out.writeDouble(CS);
+		out.writeDouble(HP);
+		out.writeDouble(SM);
+		out.writeInt(endTime);
+		byte[] name = songName.getBytes(StandardCharsets.UTF_8);
+		out.writeInt(name.length);
+		out.write(name);
+
+		out.writeInt(circleX.length);
+		for (int i = 0; i<circleX.length; i++) {
+			out.writeInt(circleX[i]);
+			out.writeInt(circleY[i]);
+			out.writeInt(circleTime[i]);
+			out.writeInt(circleCombo[i]);
+		}
+		out.writeInt(sliderTime.length);
+		for (int i = 0; i<sliderTime.length; i++) {
+			out.writeInt(sliderTime[i]);
+			out.writeInt(sliderDuration[i]);
+			out.writeInt(sliderSlides[i]);
+			out.writeInt(sliderCombo[i]);
+			out.writeInt(sliderStack[i]);
+			out.writeChar(sliderShapes[i].curve);
+			out.writeInt(sliderShapes[i].controlPoints.length);
+			for (int[] a : sliderShapes[i].controlPoints) {
+				out.writeInt(a[0]);
+				out.writeInt(a[1]);
+			}
+			out.writeDouble(sliderShapes[i].length);
+		}
+		out.writeInt(spinnerTime.length);
+		for (int i = 0; i<spinnerTime.length; i++) {
+			out.writeInt(spinnerTime[i]);
+			out.writeInt(spinnerEnd[i]);
+		}
+		out.writeInt(timeline.size());
+		for (int i = 0; i<timeline.size(); i++) {
+			out.writeInt(timeline.time[i]);
+			out.writeDouble(timeline.beatLength[i]);
+			out.writeDouble(timeline.multiplier[i]);
+		}
+		out.writeInt(breaks.length);
+		for (int[] a : breaks) {
+			out.writeInt(a[0]);
+			out.writeInt(a[1]);
+		}
+	}
+
+	void stack(int window) {
+		//stack mechanic: notes on top of each other (and close in time) are shifted a little for readability
+		//every circle and slider head is visited once, newest first, remembering the newest note seen at each position
+		//open addressing hash table of positions, twice as big as the number of notes so it never fills up
+		int size = Integer.highestOneBit(Math.max(8, circleX.length+sliderTime.length)*2-1)<<1;
+		long[] position = new long[size];
+		int[] height = new int[size]; //stack height of the newest note at that position
+		int[] last = new int[size]; //time of that note, MIN_VALUE if the slot is empty
+		Arrays.fill(last, Integer.MIN_VALUE);
+		int shift = 64-Integer.numberOfTrailingZeros(size);
+		int c = circleX.length-1;
+		int s = sliderTime.length-1;
+		while (c>=0 || s>=0) {
+			boolean circle = s<0 || (c>=0 && circleTime[c]>=sliderTime[s]);
+			int x = circle ? circleX[c] : sliderShapes[s].controlPoints[0][0]*3/2;
+			int y = circle ? circleY[c] : sliderShapes[s].controlPoints[0][1]*3/2;
+			int time = circle ? circleTime[c] : sliderTime[s];
+
+			//find the position's slot (or an empty one)
+			long key = ((long)x<<32)|(y&0xFFFFFFFFL);
+			int slot = (int)((key*0x9E3779B97F4A7C15L)>>>shift);
+			while (last[slot] != Integer.MIN_VALUE && position[slot] != key) slot = (slot+1)&(size-1);
+
+			//one higher than the note after it at the same position, if that note isn't too far away in time
+			int h = 0;
+			if (last[slot] != Integer.MIN_VALUE && last[slot]-time<window) h = height[slot]+1;
+			position[slot] = key;
+			height[slot] = h;
+			last[slot] = time;
+
+			//stack
+			if (circle) {
+				circleX[c]-=5*h;
+				circleY[c]-=5*h;
+				c--;
+			} else {
+				sliderStack[s] = 5*h;
+				s--;
+			}
+		}
+	}
+
+	void stamp() {
+		//fresh play state for this map: difficulty settings and note lists
+		OsuReader.AR = AR;
+		OsuReader.OD = OD;
+		OsuReader.CS = CS;
+		OsuReader.HP = HP;
+		OsuReader.SM = SM;
+		for (int i = 0; i<circleX.length; i++) {
+			OsuReader.circleList.add(new HitCircle(circleX[i], circleY[i], circleTime[i], i, circleCombo[i]));
+		}
+		for (int i = 0; i<sliderTime.length; i++) {
+			OsuReader.sliderList.add(new Slider(sliderShapes[i], sliderStack[i], sliderTime[i], sliderDuration[i], sliderSlides[i], i, sliderCombo[i]));
+		}
+		for (int i = 0; i<spinnerTime.length; i++) {
+			OsuReader.spinnerList.add(new Spinner(spinnerTime[i], spinnerEnd[i]));
+		}
+		for (int[] a : breaks) {
+			OsuReader.breakList.add(a);
+		}
+	}
+}
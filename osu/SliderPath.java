@@ -0,0 +1,293 @@
+/* osu! slider path builder
+ * Turns a slider's control points into the points it is drawn and followed along
+ * Each curve type has its own math: straight lines (L), a circular arc (P), catmull-rom (C) and bezier (B)
+ * Red anchors (a control point written twice) split a bezier slider into separate segments
+ * Segments are just ranges of the control point buffer, and the buffers are kept between sliders so building a path
+ * only allocates the path itself
+ * The curve is sampled finely in doubles (forward differencing for degree 3 or less), measured, then resampled into
+ * points an equal distance apart along the curve and cut off at the slider's length, so progress maps straight to a position
+ */
+
+package osu;
+
+import java.util.Arrays;
+
+class SliderPath {
+	static final double SPACING = 6; //distance between path points along the curve, in screen pixels
+	static final double SAMPLE = 2; //rough distance between curve samples before resampling
+
+	//scratch buffers, grown when a slider needs more room and reused by every slider after
+	int[][] control = new int[16][2]; //scaled control points
+	int[] segStart = new int[17]; //segment i is control[segStart[i]] to control[segStart[i+1]-1]
+	double[] scratchX = new double[16]; //de casteljau working points
+	double[] scratchY = new double[16];
+	double[] sampleX = new double[256]; //fine samples along the whole curve
+	double[] sampleY = new double[256];
+	int samples = 0;
+
+	int[][] build(char curve, int[][] controlPoints, double length) {
+		int n = controlPoints.length;
+		if (control.length<n) {
+			control = new int[n][2];
+			segStart = new int[n+1];
+		}
+
+		//convert file data into positions
+		for (int i = 0; i<n; i++) {
+			control[i][0] = controlPoints[i][0]*3/2;
+			control[i][1] = controlPoints[i][1]*3/2;
+		}
+
+		//sample the curve with the right math for its type (perfect circles that aren't circles are bezier, like osu!)
+		samples = 0;
+		addSample(control[0][0], control[0][1]);
+		if (curve == 'L') linear(n);
+		else if (curve == 'C') catmull(n);
+		else if (curve == 'P' && n == 3 && !collinear()) arc(length*3/2);
+		else bezier(n);
+
+		return resample(length*3/2);
+	}
+
+	void linear(int n) {
+		//straight lines between control points, the control points are already exact samples
+		for (int i = 1; i<n; i++) {
+			addSample(control[i][0], control[i][1]);
+		}
+	}
+
+	boolean collinear() {
+		//3 control points in a line have no circle through them
+		return Math.abs((control[1][0]-control[0][0])*(control[2][1]-control[0][1])-(control[1][1]-control[0][1])*(control[2][0]-control[0][0]))<1e-3;
+	}
+
+	void arc(double length) {
+		//circle through the 3 control points, from the first to the last through the middle one
+		//nearly straight points make huge circles, so it stops at the slider's length
+		double ax = control[0][0], ay = control[0][1];
+		double bx = control[1][0], by = control[1][1];
+		double cx = control[2][0], cy = control[2][1];
+		double d = 2*(ax*(by-cy)+bx*(cy-ay)+cx*(ay-by));
+		double a2 = ax*ax+ay*ay, b2 = bx*bx+by*by, c2 = cx*cx+cy*cy;
+		double centerX = (a2*(by-cy)+b2*(cy-ay)+c2*(ay-by))/d;
+		double centerY = (a2*(cx-bx)+b2*(ax-cx)+c2*(bx-ax))/d;
+		double radius = Math.hypot(ax-centerX, ay-centerY);
+
+		//angles of the ends, and which way round the middle point is
+		double start = Math.atan2(ay-centerY, ax-centerX);
+		double end = Math.atan2(cy-centerY, cx-centerX);
+		while (end<start) end+=2*Math.PI;
+		double range = end-start;
+		double dir = 1;
+		if ((cy-ay)*(bx-ax)-(cx-ax)*(by-ay)<0) {
+			dir = -1;
+			range = 2*Math.PI-range;
+		}
+
+		if (range*radius>length) {
+			range = length/radius;
+			cx = centerX+radius*Math.cos(start+dir*range);
+			cy = centerY+radius*Math.sin(start+dir*range);
+		}
+
+		//each sample rotates the last one by the same small angle, so there is only one cos and sin
+		int steps = Math.max(1, (int) Math.ceil(range*radius/SAMPLE));
+		double cos = Math.cos(dir*range/steps);
+		double sin = Math.sin(dir*range/steps);
+		double rx = ax-centerX;
+		double ry = ay-centerY;
+		for (int j = 1; j<steps; j++) {
+			double t = rx*cos-ry*sin;
+			ry = rx*sin+ry*cos;
+			rx = t;
+			addSample(centerX+rx, centerY+ry);
+		}
+		addSample(cx, cy);
+	}
+
+	void catmull(int n) {
+		//catmull-rom spline through every control point, the ends use made up neighbours like osu!
+		//each piece is a cubic, so it is forward differenced like a bezier
+		for (int i = 0; i<n-1; i++) {
+			int[] p1 = control[i];
+			int[] p2 = control[i+1];
+			int[] p0 = i>0 ? control[i-1] : p1;
+			int steps = Math.max(1, (int) Math.ceil(Math.hypot(p2[0]-p1[0], p2[1]-p1[1])/SAMPLE));
+			for (int axis = 0; axis<2; axis++) {
+				double p3 = i<n-2 ? control[i+2][axis] : 2*p2[axis]-p1[axis];
+				differences(p1[axis], 0.5*(p2[axis]-p0[axis]), 0.5*(2*p0[axis]-5*p1[axis]+4*p2[axis]-p3),
+						0.5*(-p0[axis]+3*p1[axis]-3*p2[axis]+p3), 1.0/steps, axis == 0 ? scratchX : scratchY);
+			}
+			step(steps);
+			addSample(p2[0], p2[1]);
+		}
+	}
+
+	void bezier(int n) {
+		//bezier curves, split into segments at red anchors
+		int segments = 0;
+		segStart[0] = 0;
+		for (int i = 1; i<n; i++) {
+			if (control[i][0] == control[i-1][0] && control[i][1] == control[i-1][1]) {
+				segments++;
+				segStart[segments] = i;
+			}
+		}
+		segments++;
+		segStart[segments] = n;
+
+		//sample every segment, each one ends where the next begins
+		for (int i = 0; i<segments; i++) {
+			int start = segStart[i];
+			int num = segStart[i+1]-start; //control points in the bezier curve (degree+1)
+			if (num<2) continue;
+			int steps = Math.max(1, (int) Math.ceil(polygonLength(start, num)/SAMPLE));
+			if (num<=4) {
+				forwardDifference(start, num, steps);
+			} else {
+				for (int j = 1; j<steps; j++) {
+					bezier(start, num, (double)j/steps);
+					addSample(scratchX[0], scratchY[0]);
+				}
+			}
+			addSample(control[start+num-1][0], control[start+num-1][1]);
+		}
+	}
+
+	int[][] resample(double length) {
+		//points evenly spaced (about SPACING apart) along the samples, stopping at length
+		if (length<=0 || samples<2) {
+			return new int[][] {{(int) Math.round(sampleX[0]), (int) Math.round(sampleY[0])}};
+		}
+		double total = 0;
+		for (int i = 1; i<samples; i++) {
+			total+=Math.hypot(sampleX[i]-sampleX[i-1], sampleY[i]-sampleY[i-1]);
+		}
+		//a curve shorter than the slider carries on straight from its last sample
+		if (total<length) {
+			double dx = sampleX[samples-1]-sampleX[samples-2];
+			double dy = sampleY[samples-1]-sampleY[samples-2];
+			double d = Math.hypot(dx, dy);
+			addSample(sampleX[samples-1]+dx/d*(length-total), sampleY[samples-1]+dy/d*(length-total));
+		}
+
+		int m = (int) Math.ceil(length/SPACING);
+		double spacing = length/m;
+		int[][] points = new int[m+1][2];
+		points[0][0] = (int) Math.round(sampleX[0]);
+		points[0][1] = (int) Math.round(sampleY[0]);
+		int k = 1;
+		double walked = 0; //curve length up to sample i-1
+		for (int i = 1; i<samples && k<=m; i++) {
+			double d = Math.hypot(sampleX[i]-sampleX[i-1], sampleY[i]-sampleY[i-1]);
+			//every point that lands between sample i-1 and sample i
+			while (k<=m && k*spacing<=walked+d) {
+				double r = (k*spacing-walked)/d;
+				points[k][0] = (int) Math.round(sampleX[i-1]+(sampleX[i]-sampleX[i-1])*r);
+				points[k][1] = (int) Math.round(sampleY[i-1]+(sampleY[i]-sampleY[i-1])*r);
+				k++;
+			}
+			walked+=d;
+		}
+		//rounding can leave the last point unplaced, it is the end of the curve
+		for (; k<=m; k++) {
+			points[k][0] = (int) Math.round(sampleX[samples-1]);
+			points[k][1] = (int) Math.round(sampleY[samples-1]);
+		}
+		return points;
+	}
+
+	void addSample(double x, double y) {
+		//repeated positions are skipped so every step has a length
+		if (samples>0 && sampleX[samples-1] == x && sampleY[samples-1] == y) return;
+		if (samples == sampleX.length) {
+			sampleX = Arrays.copyOf(sampleX, samples*2);
+			sampleY = Arrays.copyOf(sampleY, samples*2);
+		}
+		sampleX[samples] = x;
+		sampleY[samples] = y;
+		samples++;
+	}
+
+	double polygonLength(int start, int num) {
+		//length of the control polygon, never shorter than the curve inside it
+		double d = 0;
+		for (int i = start+1; i<start+num; i++) {
+			d+=Math.hypot(control[i][0]-control[i-1][0], control[i][1]-control[i-1][1]);
+		}
+		return d;
+	}
+
+	void bezier(int start, int num, double t) {
+		//point t (0-1) along the bezier curve control[start] to control[start+num-1], ends up in scratchX[0],scratchY[0]
+		//de casteljau without recursion
+		if (scratchX.length<num) {
+			scratchX = new double[num];
+			scratchY = new double[num];
+		}
+		for (int i = 0; i<num; i++) {
+			scratchX[i] = control[start+i][0];
+			scratchY[i] = control[start+i][1];
+		}
+		//each pass replaces the curve with one of a degree lower, until one point is left
+		for (int r = num-1; r>0; r--) {
+			for (int i = 0; i<r; i++) {
+				scratchX[i]+=(scratchX[i+1]-scratchX[i])*t;
+				scratchY[i]+=(scratchY[i+1]-scratchY[i])*t;
+			}
+		}
+	}
+
+	void forwardDifference(int start, int num, int steps) {
+		//samples 1/steps apart (not including either end) on a bezier curve of degree 3 or less
+		//the curve is written as a polynomial p0 + a1*t + a2*t^2 + a3*t^3 for x and y
+		double h = 1.0/steps;
+		for (int axis = 0; axis<2; axis++) {
+			double p0 = control[start][axis];
+			double p1 = control[start+1][axis];
+			double a1, a2, a3;
+			if (num == 4) {
+				double p2 = control[start+2][axis];
+				double p3 = control[start+3][axis];
+				a1 = 3*(p1-p0);
+				a2 = 3*(p0-2*p1+p2);
+				a3 = -p0+3*p1-3*p2+p3;
+			} else if (num == 3) {
+				double p2 = control[start+2][axis];
+				a1 = 2*(p1-p0);
+				a2 = p0-2*p1+p2;
+				a3 = 0;
+			} else {
+				a1 = p1-p0;
+				a2 = 0;
+				a3 = 0;
+			}
+			differences(p0, a1, a2, a3, h, axis == 0 ? scratchX : scratchY);
+		}
+		step(steps);
+	}
+
+	static void differences(double a0, double a1, double a2, double a3, double h, double[] out) {
+		//start value and 1st/2nd/3rd differences of a0 + a1*t + a2*t^2 + a3*t^3 for a step of h
+		out[0] = a0;
+		out[1] = a1*h+a2*h*h+a3*h*h*h;
+		out[2] = 2*a2*h*h+6*a3*h*h*h;
+		out[3] = 6*a3*h*h*h;
+	}
+
+	void step(int steps) {
+		//samples from the differences in scratchX and scratchY, each one just adds differences to the last one
+		//instead of evaluating the curve again
+		double x0 = scratchX[0], x1 = scratchX[1], x2 = scratchX[2], x3 = scratchX[3];
+		double y0 = scratchY[0], y1 = scratchY[1], y2 = scratchY[2], y3 = scratchY[3];
+		for (int j = 1; j<steps; j++) {
+			x0+=x1;
+			x1+=x2;
+			x2+=x3;
+			y0+=y1;
+			y1+=y2;
+			y2+=y3;
+			addSample(x0, y0);
+		}
+	}
+}
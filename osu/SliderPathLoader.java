@@ -0,0 +1,108 @@
+/* osu! slider path loader
+ * Sliders only keep their shape (control points) until they are about to fade in, then their path is built in the
+ * background a little ahead of time
+ * The body (every path point as a translucent circle) is drawn into an image along with the path, so a frame just
+ * draws that image at the slider's fade alpha instead of hundreds of antialiased circles
+ * Paths and bodies are dropped again after the slider fades out, so memory depends on how many sliders are on screen,
+ * not how long the map is
+ */
+
+package osu;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.Transparency;
+import java.awt.image.BufferedImage;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+class SliderPathLoader {
+	static final int BATCH = 32; //sliders per task when a lot of paths are requested at once
+	static final Color BODY = new Color(0,128,255,192/4); //body circles at full fade in alpha
+
+	Slider[] sliders; //every slider of the play in time order
+	ForkJoinPool pool;
+	int lookAhead; //ms before a slider starts fading in that its path is built
+	int next = 0; //first slider whose path hasn't been requested yet
+	ThreadLocal<SliderPath> path = ThreadLocal.withInitial(SliderPath::new); //scratch buffers aren't shared between threads
+
+	SliderPathLoader(List<Slider> sliders, ForkJoinPool pool, int lookAhead) {
+		this.sliders = sliders.toArray(new Slider[0]);
+		this.pool = pool;
+		this.lookAhead = lookAhead;
+	}
+
+	void update(long time, int fadeIn) {
+		//request paths for every slider that fades in before time (map time) + lookAhead
+		int from = next;
+		while (next<sliders.length && sliders[next].time-fadeIn<=time+lookAhead) next++;
+		if (next>from) request(from, next);
+	}
+
+	ForkJoinTask<Void> request(int from, int to) {
+		//build paths for sliders[from] to sliders[to-1] in the background
+		return pool.submit(new PathTask(from, to));
+	}
+
+	void build(Slider a) {
+		//build right now if the background worker hasn't gotten to it (the worker may build it too, both are the same)
+		//a slider that already faded out isn't built again, its path and body were dropped for good
+		if (a.removed) return;
+		if (a.points == null) {
+			int[][] points = path.get().build(a.shape.curve, a.shape.controlPoints, a.shape.length);
+			for (int[] p : points) {
+				p[0]-=a.stack;
+				p[1]-=a.stack;
+			}
+			a.body = body(a, points);
+			a.points = points; //set last, once points is there so is the body
+		}
+	}
+
+	static BufferedImage body(Slider a, int[][] points) {
+		//every path point as a circle, in an image just big enough for them (its corner goes in a.bodyX, a.bodyY)
+		int minX = Integer.MAX_VALUE, minY = Integer.MAX_VALUE, maxX = Integer.MIN_VALUE, maxY = Integer.MIN_VALUE;
+		for (int[] p : points) {
+			minX = Math.min(minX, p[0]);
+			minY = Math.min(minY, p[1]);
+			maxX = Math.max(maxX, p[0]);
+			maxY = Math.max(maxY, p[1]);
+		}
+		BufferedImage img = OsuClasses.compatibleImage(maxX-minX+a.width+1, maxY-minY+a.height+1, Transparency.TRANSLUCENT);
+		Graphics2D g = img.createGraphics();
+		g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+		g.setColor(BODY);
+		for (int[] p : points) {
+			g.fillOval(p[0]-minX, p[1]-minY, a.width, a.height);
+		}
+		g.dispose();
+		a.bodyX = minX;
+		a.bodyY = minY;
+		return img;
+	}
+
+	class PathTask extends RecursiveAction {
+		//builds sliders[from] to sliders[to-1], split in half until it is a small enough batch
+		private static final long serialVersionUID = 1L;
+		int from, to;
+		PathTask(int from, int to) {
+			this.from = from;
+			this.to = to;
+		}
+
+		protected void compute() {
+			if (to-from<=BATCH) {
+				for (int i = from; i<to; i++) {
+					if (sliders[i].removed) continue; //faded out before the worker got to it
+					build(sliders[i]);
+				}
+				return;
+			}
+			int mid = (from+to)>>>1;
+			invokeAll(new PathTask(from, mid), new PathTask(mid, to));
+		}
+	}
+}
@@ -0,0 +1,17 @@
+/* osu! slider shape
+ * What a slider's path is made from, as written in the map file
+ * The path itself is only built from it when the slider is about to be played (SliderPathLoader)
+ */
+
+package osu;
+
+class SliderShape {
+	char curve; //B, C, L or P
+	int[][] controlPoints; //unscaled, first one is the slider's position
+	double length; //pixel length
+	SliderShape(char curve, int[][] controlPoints, double length) {
+		this.curve = curve;
+		this.controlPoints = controlPoints;
+		this.length = length;
+	}
+}
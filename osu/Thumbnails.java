@@ -0,0 +1,134 @@
+/* osu! background thumbnails
+ * Song select shows a small copy of each map's background, never the full size bg.jpg
+ * A thumbnail is made once on a worker thread (the jpg is decoded at a fraction of its size) and saved to osuYM/thumbs,
+ * after that only the small file is read
+ * Thumbnails in memory are kept under a byte budget, the ones drawn longest ago are dropped first
+ */
+
+package osu;
+
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.Transparency;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+
+class Thumbnails {
+	static final int WIDTH = 160, HEIGHT = 90; //thumbnail size
+	static final long BUDGET = 16<<20; //bytes of thumbnails kept in memory (about 290)
+
+	File root; //folder with all the map folders
+	File dir; //saved thumbnails, one jpg per map folder (not a map folder itself, there's no map.osu)
+	ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, Runtime.getRuntime().availableProcessors()-1), r -> {
+		Thread t = new Thread(r, "thumbnail");
+		t.setDaemon(true);
+		return t;
+	});
+	LinkedHashMap<String,BufferedImage> images = new LinkedHashMap<String,BufferedImage>(64, 0.75f, true); //access order
+	long bytes = 0; //size of everything in images
+	HashSet<String> pending = new HashSet<String>(); //being made, or failed (not tried again)
+
+	Thumbnails(File root) {
+		this.root = root;
+		dir = new File(root, "thumbs");
+	}
+
+	synchronized BufferedImage get(String folder) {
+		//the thumbnail if it's ready, otherwise it's made in the background and this is null
+		BufferedImage img = images.get(folder);
+		if (img == null && pending.add(folder)) pool.submit(() -> load(folder));
+		return img;
+	}
+
+	void load(String folder) {
+		BufferedImage img = read(folder);
+		if (img != null) put(folder, img);
+	}
+
+	synchronized void put(String folder, BufferedImage img) {
+		pending.remove(folder);
+		BufferedImage old = images.put(folder, img);
+		if (old != null) bytes-=size(old);
+		bytes+=size(img);
+		//over budget, drop the least recently drawn
+		Iterator<Map.Entry<String,BufferedImage>> it = images.entrySet().iterator();
+		while (bytes>BUDGET && it.hasNext()) {
+			Map.Entry<String,BufferedImage> e = it.next();
+			if (e.getValue() == img) continue;
+			bytes-=size(e.getValue());
+			it.remove();
+		}
+	}
+
+	BufferedImage read(String folder) {
+		//saved thumbnail if it's newer than the background, otherwise make and save one (null if there is no background)
+		File bg = new File(root, folder+"/bg.jpg");
+		File thumb = new File(dir, folder+".jpg");
+		try {
+			if (!bg.exists()) return null;
+			if (thumb.lastModified()>=bg.lastModified()) {
+				BufferedImage saved = ImageIO.read(thumb);
+				if (saved != null) return OsuClasses.compatible(saved); //saved jpgs come back as 3 byte BGR
+			}
+			BufferedImage small = scale(decode(bg));
+			if (small == null) return null;
+			dir.mkdirs();
+			File temp = new File(dir, folder+".jpg.tmp");
+			ImageIO.write(small, "jpg", temp);
+			Files.move(temp.toPath(), thumb.toPath(), StandardCopyOption.REPLACE_EXISTING);
+			return small;
+		} catch (IOException | RuntimeException e) {
+			System.out.println(e.toString());
+			return null;
+		}
+	}
+
+	static BufferedImage decode(File bg) throws IOException {
+		//only every nth pixel is decoded, still at least twice the thumbnail size so scaling down looks smooth
+		try (ImageInputStream in = ImageIO.createImageInputStream(bg)) {
+			Iterator<ImageReader> readers = ImageIO.getImageReaders(in);
+			if (!readers.hasNext()) return null;
+			ImageReader reader = readers.next();
+			try {
+				reader.setInput(in, true, true);
+				int step = Math.max(1, Math.min(reader.getWidth(0)/(WIDTH*2), reader.getHeight(0)/(HEIGHT*2)));
+				ImageReadParam param = reader.getDefaultReadParam();
+				param.setSourceSubsampling(step, step, 0, 0);
+				return reader.read(0, param);
+			} finally {
+				reader.dispose();
+			}
+		}
+	}
+
+	static BufferedImage scale(BufferedImage img) {
+		//cropped to 16:9 from the middle, then scaled to the thumbnail size
+		if (img == null) return null;
+		int w = img.getWidth(), h = img.getHeight();
+		int cw = Math.min(w, h*WIDTH/HEIGHT), ch = Math.min(h, w*HEIGHT/WIDTH);
+		BufferedImage small = OsuClasses.compatibleImage(WIDTH, HEIGHT, Transparency.OPAQUE);
+		Graphics2D g = small.createGraphics();
+		g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+		g.drawImage(img, 0, 0, WIDTH, HEIGHT, (w-cw)/2, (h-ch)/2, (w+cw)/2, (h+ch)/2, null);
+		g.dispose();
+		return small;
+	}
+
+	static long size(BufferedImage img) {
+		return (long) img.getWidth()*img.getHeight()*4;
+	}
+}
@@ -0,0 +1,84 @@
+/* osu! timing point timeline
+ * Every timing point in time order, with the beat length and slider velocity that are in effect from that point on
+ * Built once per map, then "what is the beat length/SV at time t" is a binary search
+ * Nothing is removed while it is used, so the same timeline works for loading, seeking and restarting
+ */
+
+package osu;
+
+import java.util.ArrayList;
+import java.util.List;
+
+final class TimingPointTimeline {
+	final int[] time; //when each point starts
+	final double[] beatLength; //ms per beat from the last uninherited (red) point
+	final double[] multiplier; //slider velocity multiplier from the last inherited (green) point, 1 after a red point
+
+	TimingPointTimeline(List<TimingPoint> points) {
+		//stable sort by time, red points first when a red and a green point share a time (green applies on top)
+		ArrayList<TimingPoint> sorted = new ArrayList<TimingPoint>(points);
+		sorted.sort((a, b) -> a.time != b.time ? Integer.compare(a.time, b.time) : Boolean.compare(a.beatL<0, b.beatL<0));
+
+		int n = sorted.size();
+		time = new int[n];
+		beatLength = new double[n];
+		multiplier = new double[n];
+
+		//green points before the first red point use the first red point's beat length
+		double beat = 0;
+		for (TimingPoint a : sorted) {
+			if (a.beatL>0) {
+				beat = a.beatL;
+				break;
+			}
+		}
+		double SV = 1;
+		for (int i = 0; i<n; i++) {
+			TimingPoint a = sorted.get(i);
+			if (a.beatL>0) {
+				beat = a.beatL;
+				SV = 1;
+			}
+			if (a.beatL<0) {
+				SV = 100/Math.min(1000, Math.max(10, -a.beatL)); //same 0.1x to 10x limits as osu!
+			}
+			time[i] = a.time;
+			beatLength[i] = beat;
+			multiplier[i] = SV;
+		}
+	}
+
+	TimingPointTimeline(int[] time, double[] beatLength, double[] multiplier) {
+		this.time = time;
+		this.beatLength = beatLength;
+		this.multiplier = multiplier;
+	}
+
+	int indexAt(int t) {
+		//last point at or before t (the first point if t is before all of them, -1 if there are none)
+		int lo = 0;
+		int hi = time.length-1;
+		if (hi<0) return -1;
+		if (t<time[0]) return 0;
+		while (lo<hi) {
+			int mid = (lo+hi+1)>>>1;
+			if (time[mid]<=t) lo = mid;
+			else hi = mid-1;
+		}
+		return lo;
+	}
+
+	double beatLengthAt(int t) {
+		int i = indexAt(t);
+		return i<0 ? 0 : beatLength[i];
+	}
+
+	double multiplierAt(int t) {
+		int i = indexAt(t);
+		return i<0 ? 1 : multiplier[i];
+	}
+
+	int size() {
+		return time.length;
+	}
+}